@@ -0,0 +1,79 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.ai;
+
+import swen221.tetris.logic.Game;
+import swen221.tetris.moves.Move;
+import swen221.tetris.simulation.Player;
+import swen221.tetris.tetromino.PackedTetromino;
+
+/**
+ * Provides the mechanism common to computer players which plan where to place
+ * the active tetromino, and then make the moves needed to get it there. A plan
+ * is made whenever the active tetromino is not where the player expects it to
+ * be. This happens when a new tetromino is issued, but also if gravity moves
+ * the tetromino before the player has finished moving it, in which case the
+ * player simply plans again from where the tetromino is now.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public abstract class AbstractPlayer implements Player {
+	/**
+	 * The moves being made to reach the chosen placement, and the position of the
+	 * active tetromino after each.
+	 */
+	private Move[] path = new Move[0];
+	private long[] positions = new long[0];
+	private int pathLength;
+	private int pathIndex;
+
+	/**
+	 * Where the active tetromino should be, if the last move was made as planned.
+	 */
+	private long expected = PackedTetromino.NONE;
+
+	@Override
+	public Move getMove(Game game) {
+		long t = game.getActiveBoard().getPackedActiveTetromino();
+		if (t == PackedTetromino.NONE || PackedTetromino.isLanded(t)) {
+			return null;
+		} else if (t != expected) {
+			expected = t;
+			pathIndex = 0;
+			pathLength = 0;
+			plan(game, t);
+		}
+		if (pathIndex == pathLength) {
+			return null;
+		}
+		expected = positions[pathIndex];
+		return path[pathIndex++];
+	}
+
+	/**
+	 * Decide where to place the active tetromino and, if it should move, call
+	 * {@link #follow(PlacementFinder, long)} with the chosen placement.
+	 *
+	 * @param game The game being played.
+	 * @param t    The active tetromino, in packed form.
+	 */
+	protected abstract void plan(Game game, long t);
+
+	/**
+	 * Make the moves needed to reach a given placement, as found by the last
+	 * search of a given finder.
+	 *
+	 * @param finder    The finder which found the placement.
+	 * @param placement The chosen placement.
+	 */
+	protected void follow(PlacementFinder finder, long placement) {
+		if (path.length < finder.getMaxPathLength()) {
+			path = new Move[finder.getMaxPathLength()];
+			positions = new long[finder.getMaxPathLength()];
+		}
+		pathIndex = 0;
+		pathLength = finder.getPath(placement, path, positions);
+	}
+}
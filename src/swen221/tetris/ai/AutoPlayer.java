@@ -0,0 +1,176 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.ai;
+
+import swen221.tetris.logic.Board;
+import swen221.tetris.logic.Game;
+import swen221.tetris.tetromino.PackedTetromino;
+
+/**
+ * A computer player which decides where to place each tetromino by looking one
+ * tetromino ahead. Every placement of the active tetromino is scored using an
+ * {@link Evaluator}, and then the most promising are refined by considering
+ * every placement of the next tetromino as well. Refinement stops once the
+ * time budget for the move is used up, such that the player always responds
+ * in good time.
+ * <p>
+ * The boards used to evaluate placements are allocated once and reused for
+ * every move, hence planning does not allocate. A player should not be shared
+ * between games which are played at the same time.
+ * </p>
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public class AutoPlayer extends AbstractPlayer {
+	/**
+	 * The default time budget for planning each move, in nanoseconds.
+	 */
+	public static final long DEFAULT_BUDGET = 10_000_000;
+
+	private final Evaluator evaluator;
+
+	/**
+	 * The time budget for planning each move, in nanoseconds.
+	 */
+	private final long budget;
+
+	/**
+	 * Finds the placements of the active and next tetromino respectively. These
+	 * are separate, since the path to the chosen placement of the active
+	 * tetromino is needed after the next tetromino has been considered.
+	 */
+	private PlacementFinder first;
+	private PlacementFinder second;
+
+	/**
+	 * Scratch boards holding the current board, the board after placing the
+	 * active tetromino, and the board after placing the next tetromino.
+	 */
+	private Bitboard current;
+	private Bitboard afterFirst;
+	private Bitboard afterSecond;
+
+	private long[] firstPlacements;
+	private long[] secondPlacements;
+
+	/**
+	 * The score of each placement of the active tetromino, and the order in which
+	 * they are refined (i.e. best first).
+	 */
+	private double[] scores;
+	private int[] order;
+
+	public AutoPlayer() {
+		this(Evaluator.DEFAULT, DEFAULT_BUDGET);
+	}
+
+	/**
+	 * Construct a player with a given evaluator and time budget.
+	 *
+	 * @param evaluator Used to score the board after each placement.
+	 * @param budget    Time budget for planning each move, in nanoseconds.
+	 */
+	public AutoPlayer(Evaluator evaluator, long budget) {
+		this.evaluator = evaluator;
+		this.budget = budget;
+	}
+
+	@Override
+	protected void plan(Game game, long t) {
+		long deadline = System.nanoTime() + budget;
+		Board board = game.getActiveBoard();
+		resize(board.getWidth(), board.getHeight());
+		current.copyFrom(board);
+		int n = first.find(current, t, firstPlacements);
+		if (n == 0) {
+			return;
+		}
+		// Score every placement on its own
+		for (int i = 0; i != n; ++i) {
+			int lines = place(current, firstPlacements[i], afterFirst);
+			scores[i] = evaluator.evaluate(afterFirst, lines);
+			order[i] = i;
+		}
+		sort(n);
+		// Refine the most promising by looking ahead, whilst there is time
+		long spawn = PackedTetromino.pack(board.getWidth() / 2, board.getHeight() - 2, game.getNextTetromino());
+		int best = order[0];
+		double bestScore = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i != n && (i == 0 || System.nanoTime() < deadline); ++i) {
+			int lines = place(current, firstPlacements[order[i]], afterFirst);
+			double score = lookahead(spawn, lines);
+			if (score > bestScore) {
+				best = order[i];
+				bestScore = score;
+			}
+		}
+		follow(first, firstPlacements[best]);
+	}
+
+	/**
+	 * Determine the best score which can be obtained by placing the next
+	 * tetromino on the board after the active tetromino has been placed.
+	 *
+	 * @param spawn The next tetromino at the position it will be issued.
+	 * @param lines The number of lines cleared by placing the active tetromino.
+	 * @return The best score, or negative infinity if the next tetromino cannot be
+	 *         issued (i.e. the game would be over).
+	 */
+	private double lookahead(long spawn, int lines) {
+		int n = second.find(afterFirst, spawn, secondPlacements);
+		double best = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i != n; ++i) {
+			int more = place(afterFirst, secondPlacements[i], afterSecond);
+			best = Math.max(best, evaluator.evaluate(afterSecond, lines + more));
+		}
+		return best;
+	}
+
+	/**
+	 * Place a tetromino on a copy of a given board and remove any full rows.
+	 *
+	 * @return The number of rows removed.
+	 */
+	private static int place(Bitboard from, long t, Bitboard to) {
+		to.copyFrom(from);
+		to.place(t);
+		return to.clearFullRows();
+	}
+
+	/**
+	 * Sort the first <code>n</code> placements from best to worst score. Since
+	 * there are only a few dozen placements, insertion sort is sufficient.
+	 */
+	private void sort(int n) {
+		for (int i = 1; i < n; ++i) {
+			int item = order[i];
+			int j = i;
+			while (j > 0 && scores[order[j - 1]] < scores[item]) {
+				order[j] = order[j - 1];
+				j--;
+			}
+			order[j] = item;
+		}
+	}
+
+	/**
+	 * Allocate the scratch space for a board of a given size, unless already
+	 * allocated.
+	 */
+	private void resize(int width, int height) {
+		if (current != null && current.getWidth() == width && current.getHeight() == height) {
+			return;
+		}
+		first = new PlacementFinder(width, height);
+		second = new PlacementFinder(width, height);
+		current = new Bitboard(width, height);
+		afterFirst = new Bitboard(width, height);
+		afterSecond = new Bitboard(width, height);
+		firstPlacements = new long[first.getMaxPlacements()];
+		secondPlacements = new long[second.getMaxPlacements()];
+		scores = new double[first.getMaxPlacements()];
+		order = new int[first.getMaxPlacements()];
+	}
+}
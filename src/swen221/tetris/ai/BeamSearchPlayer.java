@@ -0,0 +1,488 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.ai;
+
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import swen221.tetris.logic.Board;
+import swen221.tetris.logic.Game;
+import swen221.tetris.tetromino.PackedTetromino;
+import swen221.tetris.tetromino.BagSequence;
+import swen221.tetris.tetromino.Tetromino;
+
+/**
+ * A computer player which looks several tetrominos ahead using a beam search.
+ * Starting from the current board, every placement of each tetromino in turn
+ * is considered on each of the boards kept from the previous step, and only the
+ * best scoring boards (according to an {@link Evaluator}) are kept for the next
+ * step. The active tetromino is then placed wherever leads to the best board
+ * found. Searching stops early if the time budget for the move is used up.
+ * <p>
+ * To see beyond the next tetromino, the player is given its own copy of the
+ * sequence of tetrominos used by the game (e.g. a {@link BagSequence} with
+ * the same seed). This is kept in step with the game using
+ * {@link Game#getTetrominoCount()}. If the copy ever disagrees with the next
+ * tetromino of the game, the player looks no further than the next tetromino.
+ * </p>
+ * <p>
+ * The boards kept at each step are held as bitboards in a single array, and
+ * expanded in parallel on a fork-join pool. Each worker thread uses its own
+ * scratch space for searching placements, hence nothing mutable is shared
+ * between workers except that each writes its own region of the results.
+ * Different boards often lead to the same board at the next step, so once
+ * every board has been expanded the children are offered in order to a
+ * {@link DuplicateFilter}, and only the best scoring child with a given board
+ * is kept (the first, if several score the same). This is done on one thread,
+ * such that the boards kept do not depend on the order in which workers happen
+ * to finish.
+ * </p>
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public class BeamSearchPlayer extends AbstractPlayer {
+	/**
+	 * The default number of boards kept at each step.
+	 */
+	public static final int DEFAULT_WIDTH = 32;
+
+	/**
+	 * The default number of tetrominos considered, including the active one.
+	 */
+	public static final int DEFAULT_DEPTH = 4;
+
+	/**
+	 * The maximum number of boards kept at each step. This ensures every child
+	 * at a step can be checked for duplicates (see {@link DuplicateFilter}),
+	 * unless the boards have many more placements than usual.
+	 */
+	public static final int MAX_WIDTH = 1024;
+
+	/**
+	 * The number of boards below which a step is expanded sequentially, rather
+	 * than being split further.
+	 */
+	private static final int THRESHOLD = 4;
+
+	private final Iterator<Tetromino> sequence;
+	private final int beamWidth;
+	private final int depth;
+	private final Evaluator evaluator;
+	private final long budget;
+	private final ForkJoinPool pool;
+
+	/**
+	 * The most recent tetrominos taken from the sequence, where the tetromino at
+	 * position <code>i</code> in the sequence is held at
+	 * <code>i % window.length</code>.
+	 */
+	private final Tetromino[] window;
+
+	/**
+	 * The number of tetrominos taken from the sequence so far.
+	 */
+	private long drawn;
+
+	/**
+	 * Scratch space for each worker thread.
+	 */
+	private final ThreadLocal<Workspace> workspaces = new ThreadLocal<>();
+
+	// The dimensions of the board being played, and the maximum number of
+	// placements of any one tetromino on it.
+	private int width;
+	private int height;
+	private int maxPlacements;
+
+	/**
+	 * Finds the placements of the active tetromino, such that the path to the
+	 * chosen placement can be determined afterwards.
+	 */
+	private PlacementFinder root;
+	private long[] rootPlacements;
+	private Bitboard current;
+	private Bitboard scratch;
+
+	/**
+	 * The boards kept at the current step, where the rows of the <code>i</code>th
+	 * board begin at <code>i*height</code>. For each, the score, the total number
+	 * of lines cleared so far, and the placement of the active tetromino it came
+	 * from are also held.
+	 */
+	private long[] beam;
+	private double[] beamScores;
+	private int[] beamLines;
+	private int[] beamRoots;
+	private int beamSize;
+
+	/**
+	 * The boards for the next step, which are swapped with the current ones once
+	 * complete.
+	 */
+	private long[] nextBeam;
+	private double[] nextScores;
+	private int[] nextLines;
+	private int[] nextRoots;
+
+	/**
+	 * The children of each board at the current step, where the children of the
+	 * <code>i</code>th board are held from <code>i*maxPlacements</code> onwards.
+	 */
+	private long[] childPlacements;
+	private long[] childHashes;
+	private double[] childScores;
+	private int[] childLines;
+	private int[] childCounts;
+
+	/**
+	 * A min-heap of the best children found at the current step.
+	 */
+	private int[] heap;
+
+	/**
+	 * Finds the children at the current step which lead to the same board.
+	 */
+	private DuplicateFilter duplicates;
+
+	public BeamSearchPlayer(Iterator<Tetromino> sequence) {
+		this(sequence, DEFAULT_WIDTH, DEFAULT_DEPTH, Evaluator.DEFAULT, AutoPlayer.DEFAULT_BUDGET,
+				ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Construct a player with a given configuration.
+	 *
+	 * @param sequence  A copy of the sequence of tetrominos used by the game,
+	 *                  which has not yet been used.
+	 * @param beamWidth The number of boards kept at each step, which is at most
+	 *                  <code>MAX_WIDTH</code>.
+	 * @param depth     The number of tetrominos considered, including the active
+	 *                  one.
+	 * @param evaluator Used to score boards.
+	 * @param budget    Time budget for planning each move, in nanoseconds.
+	 * @param pool      The pool on which boards are expanded.
+	 */
+	public BeamSearchPlayer(Iterator<Tetromino> sequence, int beamWidth, int depth, Evaluator evaluator, long budget,
+			ForkJoinPool pool) {
+		if (beamWidth < 1 || beamWidth > MAX_WIDTH) {
+			throw new IllegalArgumentException("Invalid beam width (" + beamWidth + ")");
+		} else if (depth < 1) {
+			throw new IllegalArgumentException("Invalid depth (" + depth + ")");
+		}
+		this.sequence = sequence;
+		this.beamWidth = beamWidth;
+		this.depth = depth;
+		this.evaluator = evaluator;
+		this.budget = budget;
+		this.pool = pool;
+		this.window = new Tetromino[depth + 1];
+	}
+
+	@Override
+	protected void plan(Game game, long t) {
+		long deadline = System.nanoTime() + budget;
+		Board board = game.getActiveBoard();
+		resize(board.getWidth(), board.getHeight());
+		current.copyFrom(board);
+		// Place the active tetromino from where it is now
+		int n = root.find(current, t, rootPlacements);
+		if (n == 0) {
+			return;
+		}
+		for (int i = 0; i != n; ++i) {
+			scratch.copyFrom(current);
+			scratch.place(rootPlacements[i]);
+			int lines = scratch.clearFullRows();
+			childPlacements[i] = rootPlacements[i];
+			childScores[i] = evaluator.evaluate(scratch, lines);
+			childLines[i] = lines;
+		}
+		childCounts[0] = n;
+		select(1, true);
+		// Place each following tetromino from where it will be issued
+		int steps = lookahead(game);
+		for (int step = 1; step < steps && System.nanoTime() < deadline; ++step) {
+			Tetromino next = step == 1 ? game.getNextTetromino() : get(game.getTetrominoCount() + step - 1);
+			long spawn = PackedTetromino.pack(width / 2, height - 2, next);
+			pool.invoke(new Expansion(spawn, 0, beamSize));
+			discardDuplicates();
+			if (!select(beamSize, false)) {
+				// Every board leads to the game ending, so stick with the last step
+				break;
+			}
+		}
+		int best = 0;
+		for (int i = 1; i < beamSize; ++i) {
+			if (beamScores[i] > beamScores[best]) {
+				best = i;
+			}
+		}
+		follow(root, rootPlacements[beamRoots[best]]);
+	}
+
+	/**
+	 * Keep the best children of the first <code>parents</code> boards as the boards
+	 * for the next step. At the first step, the parent is the current board and
+	 * its children are the placements of the active tetromino.
+	 *
+	 * @param parents The number of boards which were expanded.
+	 * @param first   Whether or not this is the first step.
+	 * @return False if there were no children, in which case the current boards
+	 *         are unchanged.
+	 */
+	private boolean select(int parents, boolean first) {
+		int size = 0;
+		for (int p = 0; p != parents; ++p) {
+			for (int i = p * maxPlacements, end = i + childCounts[p]; i != end; ++i) {
+				if (childScores[i] == Double.NEGATIVE_INFINITY) {
+					// Duplicate of another child
+					continue;
+				} else if (size < beamWidth) {
+					heap[size++] = i;
+					siftUp(size - 1);
+				} else if (childScores[i] > childScores[heap[0]]) {
+					heap[0] = i;
+					siftDown(size);
+				}
+			}
+		}
+		if (size == 0) {
+			return false;
+		}
+		for (int i = 0; i != size; ++i) {
+			int child = heap[i];
+			int parent = child / maxPlacements;
+			if (first) {
+				scratch.copyFrom(current);
+				nextRoots[i] = child;
+			} else {
+				scratch.copyFrom(beam, parent * height);
+				nextRoots[i] = beamRoots[parent];
+			}
+			scratch.place(childPlacements[child]);
+			scratch.clearFullRows();
+			scratch.copyTo(nextBeam, i * height);
+			nextScores[i] = childScores[child];
+			nextLines[i] = childLines[child];
+		}
+		swap();
+		beamSize = size;
+		return true;
+	}
+
+	/**
+	 * Discard every child at the current step which leads to the same board as a
+	 * better scoring child, or as an earlier child which scores the same. A
+	 * discarded child is given a score of negative infinity.
+	 */
+	private void discardDuplicates() {
+		duplicates.reset();
+		for (int p = 0; p != beamSize; ++p) {
+			for (int i = p * maxPlacements, end = i + childCounts[p]; i != end; ++i) {
+				int discarded = duplicates.offer(i, childHashes[i], childScores[i]);
+				if (discarded != DuplicateFilter.NONE) {
+					childScores[discarded] = Double.NEGATIVE_INFINITY;
+				}
+			}
+		}
+	}
+
+	private void swap() {
+		long[] rows = beam;
+		beam = nextBeam;
+		nextBeam = rows;
+		double[] scores = beamScores;
+		beamScores = nextScores;
+		nextScores = scores;
+		int[] lines = beamLines;
+		beamLines = nextLines;
+		nextLines = lines;
+		int[] roots = beamRoots;
+		beamRoots = nextRoots;
+		nextRoots = roots;
+	}
+
+	private void siftUp(int i) {
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (childScores[heap[parent]] <= childScores[heap[i]]) {
+				break;
+			}
+			swapHeap(i, parent);
+			i = parent;
+		}
+	}
+
+	private void siftDown(int size) {
+		int i = 0;
+		while (true) {
+			int smallest = i;
+			int left = (2 * i) + 1;
+			int right = left + 1;
+			if (left < size && childScores[heap[left]] < childScores[heap[smallest]]) {
+				smallest = left;
+			}
+			if (right < size && childScores[heap[right]] < childScores[heap[smallest]]) {
+				smallest = right;
+			}
+			if (smallest == i) {
+				return;
+			}
+			swapHeap(i, smallest);
+			i = smallest;
+		}
+	}
+
+	private void swapHeap(int i, int j) {
+		int tmp = heap[i];
+		heap[i] = heap[j];
+		heap[j] = tmp;
+	}
+
+	/**
+	 * Determine how many tetrominos can be considered, including the active one.
+	 * This is limited by the length of the sequence, and by whether the sequence
+	 * agrees with the game.
+	 */
+	private int lookahead(Game game) {
+		long next = game.getTetrominoCount();
+		if (depth == 1) {
+			return 1;
+		} else if (!isSame(get(next), game.getNextTetromino())) {
+			// Lost track of the sequence, so rely only on the game itself
+			return 2;
+		}
+		int steps = 2;
+		while (steps < depth && get(next + steps - 1) != null) {
+			steps++;
+		}
+		return steps;
+	}
+
+	/**
+	 * Get the tetromino at a given position in the sequence, or <code>null</code>
+	 * if the sequence ends before then. Positions must not be requested out of
+	 * order by more than the size of the window.
+	 */
+	private Tetromino get(long position) {
+		while (drawn <= position && sequence.hasNext()) {
+			window[(int) (drawn++ % window.length)] = sequence.next();
+		}
+		if (position >= drawn || position < drawn - window.length) {
+			return null;
+		}
+		return window[(int) (position % window.length)];
+	}
+
+	private static boolean isSame(Tetromino t1, Tetromino t2) {
+		return t1 != null && t1.getShape() == t2.getShape() && t1.getOrientation() == t2.getOrientation()
+				&& t1.getColor() == t2.getColor();
+	}
+
+	/**
+	 * Allocate the space needed for a board of a given size, unless already
+	 * allocated.
+	 */
+	private void resize(int width, int height) {
+		if (root != null && this.width == width && this.height == height) {
+			return;
+		}
+		this.width = width;
+		this.height = height;
+		root = new PlacementFinder(width, height);
+		maxPlacements = root.getMaxPlacements();
+		rootPlacements = new long[maxPlacements];
+		current = new Bitboard(width, height);
+		scratch = new Bitboard(width, height);
+		beam = new long[beamWidth * height];
+		beamScores = new double[beamWidth];
+		beamLines = new int[beamWidth];
+		beamRoots = new int[beamWidth];
+		nextBeam = new long[beamWidth * height];
+		nextScores = new double[beamWidth];
+		nextLines = new int[beamWidth];
+		nextRoots = new int[beamWidth];
+		int children = beamWidth * maxPlacements;
+		childPlacements = new long[children];
+		childHashes = new long[children];
+		childScores = new double[children];
+		childLines = new int[children];
+		childCounts = new int[beamWidth];
+		heap = new int[beamWidth];
+		duplicates = new DuplicateFilter(children);
+	}
+
+	/**
+	 * Expands a contiguous range of the boards at the current step, by placing a
+	 * given tetromino on each in every possible way.
+	 */
+	@SuppressWarnings("serial")
+	private class Expansion extends RecursiveAction {
+		private final long spawn;
+		private final int start;
+		private final int end;
+
+		public Expansion(long spawn, int start, int end) {
+			this.spawn = spawn;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start <= THRESHOLD) {
+				Workspace ws = workspace();
+				for (int p = start; p != end; ++p) {
+					ws.parent.copyFrom(beam, p * height);
+					int n = ws.finder.find(ws.parent, spawn, ws.placements);
+					int offset = p * maxPlacements;
+					for (int i = 0; i != n; ++i) {
+						ws.child.copyFrom(ws.parent);
+						ws.child.place(ws.placements[i]);
+						int lines = beamLines[p] + ws.child.clearFullRows();
+						childPlacements[offset + i] = ws.placements[i];
+						childLines[offset + i] = lines;
+						childHashes[offset + i] = ws.child.getHash();
+						childScores[offset + i] = evaluator.evaluate(ws.child, lines);
+					}
+					childCounts[p] = n;
+				}
+			} else {
+				int middle = (start + end) >>> 1;
+				invokeAll(new Expansion(spawn, start, middle), new Expansion(spawn, middle, end));
+			}
+		}
+	}
+
+	/**
+	 * Get the scratch space for the current thread, allocating it if necessary.
+	 */
+	private Workspace workspace() {
+		Workspace ws = workspaces.get();
+		if (ws == null || ws.parent.getWidth() != width || ws.parent.getHeight() != height) {
+			ws = new Workspace(width, height);
+			workspaces.set(ws);
+		}
+		return ws;
+	}
+
+	/**
+	 * The scratch space used by a worker thread to expand boards.
+	 */
+	private static final class Workspace {
+		private final PlacementFinder finder;
+		private final Bitboard parent;
+		private final Bitboard child;
+		private final long[] placements;
+
+		public Workspace(int width, int height) {
+			this.finder = new PlacementFinder(width, height);
+			this.parent = new Bitboard(width, height);
+			this.child = new Bitboard(width, height);
+			this.placements = new long[finder.getMaxPlacements()];
+		}
+	}
+}
@@ -0,0 +1,285 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.ai;
+
+import java.util.Arrays;
+
+import swen221.tetris.logic.Board;
+import swen221.tetris.logic.Rectangle;
+import swen221.tetris.logic.Zobrist;
+import swen221.tetris.tetromino.PackedTetromino;
+import swen221.tetris.tetromino.Shape;
+import swen221.tetris.tetromino.Tetromino.Orientation;
+
+/**
+ * A compact representation of the cells occupied on a board, as used when
+ * searching for moves. Unlike {@link Board}, this records only whether or not
+ * each cell is occupied (one bit per cell), and not which tetromino occupies
+ * it. Bitboards are intended to be reused, such that a search can copy a board
+ * into a scratch bitboard rather than allocating a new one.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public final class Bitboard {
+	/**
+	 * The width of the board, which is at most 64.
+	 */
+	private final int width;
+
+	/**
+	 * The height of the board.
+	 */
+	private final int height;
+
+	/**
+	 * The cells occupied on each row, where bit <code>x</code> of row
+	 * <code>y</code> is set when cell <code>(x,y)</code> is occupied.
+	 */
+	private final long[] rows;
+
+	/**
+	 * The hash of the cells occupied on this board, which is computed in the same
+	 * way as for {@link Board} (see {@link Zobrist}) and maintained as the board
+	 * changes.
+	 */
+	private long hash;
+
+	public Bitboard(int width, int height) {
+		if (width < 1 || width > Long.SIZE) {
+			throw new IllegalArgumentException("Invalid width (" + width + ")");
+		}
+		this.width = width;
+		this.height = height;
+		this.rows = new long[height];
+	}
+
+	/**
+	 * Create a bitboard matching the cells occupied on a given board.
+	 *
+	 * @param board
+	 */
+	public Bitboard(Board board) {
+		this(board.getWidth(), board.getHeight());
+		copyFrom(board);
+	}
+
+	/**
+	 * Get the width of this board.
+	 *
+	 * @return
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Get the height of this board.
+	 *
+	 * @return
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Get the cells occupied on a given row, where bit <code>x</code> is set when
+	 * cell <code>(x,y)</code> is occupied.
+	 *
+	 * @param y
+	 * @return
+	 */
+	public long getRow(int y) {
+		return rows[y];
+	}
+
+	/**
+	 * Get the hash of the cells occupied on this board. This is the same as the
+	 * occupancy hash of a {@link Board} with the same cells occupied.
+	 *
+	 * @return
+	 */
+	public long getHash() {
+		return hash;
+	}
+
+	/**
+	 * Check whether a given cell is occupied.
+	 *
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public boolean isOccupied(int x, int y) {
+		return (rows[y] & (1L << x)) != 0;
+	}
+
+	/**
+	 * Make this bitboard match the cells occupied on a given board, which must have
+	 * the same dimensions.
+	 *
+	 * @param board
+	 */
+	public void copyFrom(Board board) {
+		checkDimensions(board.getWidth(), board.getHeight());
+		for (int y = 0; y != height; ++y) {
+			rows[y] = board.getRowMask(y);
+		}
+		hash = board.getOccupancyHash();
+	}
+
+	/**
+	 * Make this bitboard match another, which must have the same dimensions.
+	 *
+	 * @param other
+	 */
+	public void copyFrom(Bitboard other) {
+		checkDimensions(other.width, other.height);
+		System.arraycopy(other.rows, 0, rows, 0, height);
+		hash = other.hash;
+	}
+
+	/**
+	 * Make this bitboard match the rows held in a given array, starting from a
+	 * given offset. This allows many boards to be held compactly in one array.
+	 *
+	 * @param rows
+	 * @param offset
+	 */
+	public void copyFrom(long[] rows, int offset) {
+		System.arraycopy(rows, offset, this.rows, 0, height);
+		hash = 0;
+		for (int y = 0; y != height; ++y) {
+			hash ^= Zobrist.row(y, this.rows[y]);
+		}
+	}
+
+	/**
+	 * Copy the rows of this bitboard into a given array, starting from a given
+	 * offset.
+	 *
+	 * @param rows
+	 * @param offset
+	 */
+	public void copyTo(long[] rows, int offset) {
+		System.arraycopy(this.rows, 0, rows, offset, height);
+	}
+
+	/**
+	 * Check whether a packed tetromino (see {@link PackedTetromino}) lies within
+	 * the board and the cells it occupies are currently free.
+	 *
+	 * @param t
+	 * @return
+	 */
+	public boolean canPlace(long t) {
+		return canPlace(PackedTetromino.getShape(t), PackedTetromino.getOrientation(t), PackedTetromino.getX(t),
+				PackedTetromino.getY(t));
+	}
+
+	/**
+	 * Check whether a tetromino of a given shape and orientation, centered on a
+	 * given position, lies within the board and the cells it occupies are
+	 * currently free.
+	 *
+	 * @param shape
+	 * @param orientation
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public boolean canPlace(Shape shape, Orientation orientation, int x, int y) {
+		Rectangle r = shape.getBoundingBox(orientation);
+		int minX = x + r.getMinX();
+		int minY = y + r.getMinY();
+		int maxY = y + r.getMaxY();
+		if (minX < 0 || x + r.getMaxX() >= width || minY < 0 || maxY >= height) {
+			return false;
+		}
+		for (int i = minY; i <= maxY; ++i) {
+			if ((rows[i] & (shape.getRowMask(orientation, i - minY) << minX)) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Fill the cells occupied by a packed tetromino (see {@link PackedTetromino}),
+	 * which is assumed to lie within the board.
+	 *
+	 * @param t
+	 */
+	public void place(long t) {
+		Shape shape = PackedTetromino.getShape(t);
+		Orientation orientation = PackedTetromino.getOrientation(t);
+		Rectangle r = shape.getBoundingBox(orientation);
+		int minX = PackedTetromino.getX(t) + r.getMinX();
+		int minY = PackedTetromino.getY(t) + r.getMinY();
+		int maxY = PackedTetromino.getY(t) + r.getMaxY();
+		for (int y = minY; y <= maxY; ++y) {
+			setRow(y, rows[y] | (shape.getRowMask(orientation, y - minY) << minX));
+		}
+	}
+
+	/**
+	 * Remove any full rows, moving the rows above them down. This is done in a
+	 * single pass from the bottom of the board, as for
+	 * {@link Board#checkForFullLines()}.
+	 *
+	 * @return The number of rows removed.
+	 */
+	public int clearFullRows() {
+		long full = -1L >>> (Long.SIZE - width);
+		int cleared = 0;
+		for (int y = 0; y != height; ++y) {
+			if (rows[y] == full) {
+				cleared++;
+			} else if (cleared != 0) {
+				setRow(y - cleared, rows[y]);
+			}
+		}
+		for (int y = height - cleared; y != height; ++y) {
+			setRow(y, 0);
+		}
+		return cleared;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof Bitboard && ((Bitboard) o).width == width && Arrays.equals(((Bitboard) o).rows, rows);
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(hash);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (int y = height - 1; y >= 0; --y) {
+			sb.append('|');
+			for (int x = 0; x != width; ++x) {
+				sb.append(isOccupied(x, y) ? '#' : '_').append('|');
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Update the cells occupied on a given row, along with the hash of the board.
+	 */
+	private void setRow(int y, long mask) {
+		hash ^= Zobrist.row(y, rows[y]) ^ Zobrist.row(y, mask);
+		rows[y] = mask;
+	}
+
+	private void checkDimensions(int width, int height) {
+		if (width != this.width || height != this.height) {
+			throw new IllegalArgumentException("Invalid dimensions (" + width + "x" + height + ")");
+		}
+	}
+}
@@ -0,0 +1,97 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.ai;
+
+/**
+ * Finds boards which duplicate one another amongst a set of scored candidates,
+ * keeping only the best scoring candidate for each board. Candidates are
+ * identified by slot, and must be offered in ascending order of slot, such
+ * that a candidate scoring the same as an earlier one with the same board is
+ * the one discarded. Hence, the candidates kept depend only on the order in
+ * which they are offered.
+ * <p>
+ * Boards are recorded in a {@link TranspositionTable} by their hash. Slots can
+ * be sparse, so each candidate kept is given the next of a dense range of
+ * ordinals, which is what the table records. Since the table records at most
+ * <code>TranspositionTable.MAX_MOVE + 1</code> ordinals, any candidates kept
+ * beyond that are not checked for duplicates. Likewise, a board evicted from
+ * the table is not found again. In either case, duplicates are merely kept.
+ * </p>
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public final class DuplicateFilter {
+	/**
+	 * Returned when a candidate is kept and no other is discarded as a result.
+	 */
+	public static final int NONE = -1;
+
+	private final TranspositionTable table;
+
+	/**
+	 * The slot of each candidate kept, indexed by its ordinal.
+	 */
+	private final int[] slots;
+
+	/**
+	 * The score of each candidate kept, indexed by its ordinal.
+	 */
+	private final double[] scores;
+
+	/**
+	 * The number of ordinals given out since the last reset.
+	 */
+	private int ordinals;
+
+	/**
+	 * Construct a filter for a given number of candidates at a time.
+	 *
+	 * @param capacity
+	 */
+	public DuplicateFilter(int capacity) {
+		int n = Math.min(capacity, TranspositionTable.MAX_MOVE + 1);
+		this.table = new TranspositionTable(Math.max(2, 2 * n));
+		this.slots = new int[n];
+		this.scores = new double[n];
+	}
+
+	/**
+	 * Forget every candidate offered so far.
+	 */
+	public void reset() {
+		table.newSearch();
+		ordinals = 0;
+	}
+
+	/**
+	 * Offer a candidate, which is compared with any earlier candidate kept with
+	 * the same board.
+	 *
+	 * @param slot  The slot of the candidate, which is greater than that of any
+	 *              earlier candidate.
+	 * @param hash  The hash of the candidate's board.
+	 * @param score The score of the candidate.
+	 * @return The slot of the candidate to discard, which is either the given
+	 *         slot or that of an earlier candidate with the same board scoring
+	 *         less, or <code>NONE</code> if there is no such candidate.
+	 */
+	public int offer(int slot, long hash, double score) {
+		long data = table.probe(hash);
+		int discarded = NONE;
+		if (data != TranspositionTable.MISS) {
+			int other = TranspositionTable.getMove(data);
+			if (score <= scores[other]) {
+				return slot;
+			}
+			discarded = slots[other];
+		}
+		if (ordinals < slots.length) {
+			slots[ordinals] = slot;
+			scores[ordinals] = score;
+			table.store(hash, (float) score, 0, ordinals++);
+		}
+		return discarded;
+	}
+}
@@ -0,0 +1,64 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.ai;
+
+/**
+ * Scores a board according to a weighted sum of some well-known features. These
+ * are the aggregate height of the columns, the number of holes (i.e. empty
+ * cells with an occupied cell above them), the bumpiness (i.e. the sum of the
+ * differences in height between adjacent columns), and the number of lines
+ * just cleared. Higher scores are better.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public final class Evaluator {
+	/**
+	 * Weights which are known to play well on a standard board.
+	 */
+	public static final Evaluator DEFAULT = new Evaluator(-0.510066, -0.35663, -0.184483, 0.760666);
+
+	private final double heightWeight;
+	private final double holeWeight;
+	private final double bumpinessWeight;
+	private final double lineWeight;
+
+	public Evaluator(double heightWeight, double holeWeight, double bumpinessWeight, double lineWeight) {
+		this.heightWeight = heightWeight;
+		this.holeWeight = holeWeight;
+		this.bumpinessWeight = bumpinessWeight;
+		this.lineWeight = lineWeight;
+	}
+
+	/**
+	 * Score a given board, after a given number of lines have just been cleared
+	 * from it. This is computed in a single pass down the board using the bits of
+	 * each row, without allocating.
+	 *
+	 * @param board The board being scored.
+	 * @param lines The number of lines just cleared.
+	 * @return
+	 */
+	public double evaluate(Bitboard board, int lines) {
+		// Adjacent pairs of columns, identified by the leftmost of each
+		long pairs = (-1L >>> (Long.SIZE - board.getWidth())) >>> 1;
+		// Columns which have an occupied cell at or above the current row
+		long covered = 0;
+		int aggregateHeight = 0;
+		int holes = 0;
+		int bumpiness = 0;
+		for (int y = board.getHeight() - 1; y >= 0; --y) {
+			long row = board.getRow(y);
+			holes += Long.bitCount(covered & ~row);
+			covered |= row;
+			// Every covered column is at least this high. Likewise, the difference in
+			// height between adjacent columns is the number of rows where exactly one
+			// of them is covered.
+			aggregateHeight += Long.bitCount(covered);
+			bumpiness += Long.bitCount((covered ^ (covered >>> 1)) & pairs);
+		}
+		return (heightWeight * aggregateHeight) + (holeWeight * holes) + (bumpinessWeight * bumpiness)
+				+ (lineWeight * lines);
+	}
+}
@@ -0,0 +1,433 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.ai;
+
+import java.util.Arrays;
+
+import swen221.tetris.logic.Board;
+import swen221.tetris.logic.Rectangle;
+import swen221.tetris.moves.*;
+import swen221.tetris.tetromino.PackedTetromino;
+import swen221.tetris.tetromino.Shape;
+import swen221.tetris.tetromino.Tetromino.Color;
+import swen221.tetris.tetromino.Tetromino.Orientation;
+
+/**
+ * Finds every position at which a tetromino can come to rest on a board. This
+ * performs a breadth-first search over the positions reachable from the
+ * tetromino's current position by moving left, right or down, or rotating
+ * clockwise. Hence, it finds placements which can only be reached by sliding or
+ * rotating a tetromino underneath an overhang, as well as those reached by
+ * simply dropping it. A position is where a tetromino comes to rest if it
+ * cannot move down from there. Since several orientations of some shapes (e.g.
+ * an "I" facing north or south) occupy exactly the same cells, only one
+ * placement is reported for each distinct set of cells.
+ * <p>
+ * A finder allocates its working space up front, and reuses it for every
+ * search on boards of the same size. Hence, it does not allocate during a
+ * search. Since the shortest sequence of moves to every position is recorded
+ * during a search, the moves needed to reach a placement can be obtained
+ * afterwards. A finder should not be shared between threads.
+ * </p>
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public final class PlacementFinder {
+	/**
+	 * A tetromino's center is never more than this many cells outside the board
+	 * when it is on the board.
+	 */
+	private static final int MARGIN = 2;
+
+	/**
+	 * The moves considered during a search, in the order they are tried.
+	 */
+	private static final Move[] MOVES = { new MoveDown(), new MoveLeft(), new MoveRight(), new ClockwiseRotation() };
+	private static final int DOWN = 0;
+	private static final int LEFT = 1;
+	private static final int RIGHT = 2;
+	private static final int ROTATE = 3;
+
+	private static final Shape[] SHAPES = Shape.values();
+	private static final Orientation[] ORIENTATIONS = Orientation.values();
+
+	/**
+	 * For each shape and orientation, the first orientation of the same shape
+	 * which occupies exactly the same cells relative to the bottom-left of its
+	 * bounding box. Placements are deduplicated using this.
+	 */
+	private static final int[][] CANONICAL = new int[SHAPES.length][ORIENTATIONS.length];
+
+	/**
+	 * For each shape and orientation, the orientation after rotating clockwise.
+	 */
+	private static final int[][] ROTATED = new int[SHAPES.length][ORIENTATIONS.length];
+
+	/**
+	 * For each shape and orientation, the bounding box relative to the center.
+	 * These are held as plain arrays since they are consulted for every position
+	 * visited.
+	 */
+	private static final int[][] MIN_X = new int[SHAPES.length][ORIENTATIONS.length];
+	private static final int[][] MAX_X = new int[SHAPES.length][ORIENTATIONS.length];
+	private static final int[][] MIN_Y = new int[SHAPES.length][ORIENTATIONS.length];
+	private static final int[][] MAX_Y = new int[SHAPES.length][ORIENTATIONS.length];
+
+	/**
+	 * For each shape and orientation, the cells occupied on each row of the
+	 * bounding box (see {@link Shape#getRowMask(Orientation, int)}).
+	 */
+	private static final long[][][] MASKS = new long[SHAPES.length][ORIENTATIONS.length][];
+
+	static {
+		for (Shape shape : SHAPES) {
+			for (Orientation orientation : ORIENTATIONS) {
+				int s = shape.ordinal();
+				int o = orientation.ordinal();
+				Rectangle r = shape.getBoundingBox(orientation);
+				MIN_X[s][o] = r.getMinX();
+				MAX_X[s][o] = r.getMaxX();
+				MIN_Y[s][o] = r.getMinY();
+				MAX_Y[s][o] = r.getMaxY();
+				MASKS[s][o] = new long[(r.getMaxY() - r.getMinY()) + 1];
+				for (int i = 0; i != MASKS[s][o].length; ++i) {
+					MASKS[s][o][i] = shape.getRowMask(orientation, i);
+				}
+				// NOTE: the orientation of some shapes is fixed, hence they don't rotate.
+				ROTATED[s][o] = shape.getTetromino(orientation, Color.RED).rotate(1).getOrientation().ordinal();
+				CANONICAL[s][o] = o;
+				for (int i = 0; i != o; ++i) {
+					if (isSameCells(shape, ORIENTATIONS[i], orientation)) {
+						CANONICAL[s][o] = i;
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Used to check placements, unless the board being searched is already a
+	 * bitboard.
+	 */
+	private Bitboard scratch;
+
+	/**
+	 * The number of positions across and up the board (including the margins
+	 * either side), which determines how positions are indexed.
+	 */
+	private int columns;
+	private int rows;
+
+	/**
+	 * Positions visited so far during the current search, indexed by orientation,
+	 * row and then column.
+	 */
+	private long[] visited;
+
+	/**
+	 * Placements found so far during the current search, indexed by canonical
+	 * orientation and the bottom-left of the tetromino's bounding box.
+	 */
+	private long[] placed;
+
+	/**
+	 * The positions waiting to be expanded (see {@link #encode(int, int, int)}).
+	 */
+	private int[] queue;
+
+	/**
+	 * For each position visited, the position it was reached from and the move
+	 * used to reach it.
+	 */
+	private int[] parents;
+	private byte[] moves;
+
+	/**
+	 * The position at which the current search started.
+	 */
+	private int start = -1;
+
+	public PlacementFinder(int width, int height) {
+		resize(width, height);
+	}
+
+	/**
+	 * Find every placement of the active tetromino on a given board.
+	 *
+	 * @param board      The board being searched.
+	 * @param placements Array into which the placements found are written, in
+	 *                   packed form (see {@link PackedTetromino}). This must be
+	 *                   large enough to hold every placement (see
+	 *                   {@link #getMaxPlacements()}).
+	 * @return The number of placements found, which is zero if there is no
+	 *         active tetromino.
+	 */
+	public int find(Board board, long[] placements) {
+		if (scratch == null || scratch.getWidth() != board.getWidth() || scratch.getHeight() != board.getHeight()) {
+			scratch = new Bitboard(board.getWidth(), board.getHeight());
+		}
+		scratch.copyFrom(board);
+		long t = board.getPackedActiveTetromino();
+		return t == PackedTetromino.NONE ? 0 : find(scratch, t, placements);
+	}
+
+	/**
+	 * Find every placement of a given tetromino on a given bitboard, starting from
+	 * a given position.
+	 *
+	 * @param board      The board being searched.
+	 * @param t          The tetromino being placed, in packed form (see
+	 *                   {@link PackedTetromino}).
+	 * @param placements Array into which the placements found are written, in
+	 *                   packed form. This must be large enough to hold every
+	 *                   placement (see {@link #getMaxPlacements()}).
+	 * @return The number of placements found, which is zero if the tetromino
+	 *         cannot be placed at its starting position.
+	 */
+	public int find(Bitboard board, long t, long[] placements) {
+		if (columns != board.getWidth() + (2 * MARGIN) || rows != board.getHeight() + (2 * MARGIN)) {
+			resize(board.getWidth(), board.getHeight());
+		}
+		Arrays.fill(visited, 0);
+		Arrays.fill(placed, 0);
+		start = -1;
+		if (!board.canPlace(t)) {
+			return 0;
+		}
+		Shape shape = PackedTetromino.getShape(t);
+		Color color = PackedTetromino.getColor(t);
+		int sh = shape.ordinal();
+		int count = 0;
+		int head = 0;
+		int tail = 0;
+		int x0 = PackedTetromino.getX(t);
+		int y0 = PackedTetromino.getY(t);
+		int o0 = PackedTetromino.getOrientation(t).ordinal();
+		start = index(x0, y0, o0);
+		visit(start, start, DOWN);
+		// Move straight down through the empty rows above the highest placed cell.
+		// Any position reachable above this point is also reachable below it, since
+		// nothing is in the way. This saves exploring many positions which cannot be
+		// where the tetromino comes to rest.
+		int top = board.getHeight() - 1;
+		while (top >= 0 && board.getRow(top) == 0) {
+			top--;
+		}
+		for (int floor = top + 1 + MARGIN; y0 > floor; --y0) {
+			int position = index(x0, y0 - 1, o0);
+			visit(position, index(x0, y0, o0), DOWN);
+		}
+		queue[tail++] = encode(x0, y0, o0);
+		while (head != tail) {
+			int entry = queue[head++];
+			int x = (entry & 0xFFF) - MARGIN;
+			int y = ((entry >>> 12) & 0xFFF) - MARGIN;
+			int o = entry >>> 24;
+			int position = index(x, y, o);
+			// Check whether tetromino comes to rest here
+			if (fits(board, sh, o, x, y - 1)) {
+				tail = explore(board, sh, x, y - 1, o, position, DOWN, tail);
+			} else if (isNewPlacement(sh, x, y, o)) {
+				placements[count++] = PackedTetromino.pack(x, y, shape.getTetromino(ORIENTATIONS[o], color));
+			}
+			tail = explore(board, sh, x - 1, y, o, position, LEFT, tail);
+			tail = explore(board, sh, x + 1, y, o, position, RIGHT, tail);
+			tail = explore(board, sh, x, y, ROTATED[sh][o], position, ROTATE, tail);
+		}
+		return count;
+	}
+
+	/**
+	 * Get the shortest sequence of moves which takes the tetromino from where the
+	 * last search started to a given placement found by that search.
+	 *
+	 * @param placement A placement found by the last search.
+	 * @param path      Array into which the moves are written, which must be
+	 *                  large enough to hold them.
+	 * @return The number of moves written.
+	 */
+	public int getPath(long placement, Move[] path) {
+		return getPath(placement, path, null);
+	}
+
+	/**
+	 * Get the shortest sequence of moves which takes the tetromino from where the
+	 * last search started to a given placement found by that search, along with
+	 * the position of the tetromino after each move.
+	 *
+	 * @param placement A placement found by the last search.
+	 * @param path      Array into which the moves are written, which must be
+	 *                  large enough to hold them.
+	 * @param positions Array into which the position after each move is written
+	 *                  in packed form, or <code>null</code> if not required.
+	 * @return The number of moves written.
+	 */
+	public int getPath(long placement, Move[] path, long[] positions) {
+		int position = index(PackedTetromino.getX(placement), PackedTetromino.getY(placement),
+				PackedTetromino.getOrientation(placement).ordinal());
+		if (start < 0 || position < 0 || position >= parents.length || !isVisited(position)) {
+			throw new IllegalArgumentException("Invalid placement (" + PackedTetromino.unpack(placement) + ")");
+		}
+		// Determine length of path first, so it can be written in order
+		int length = 0;
+		for (int p = position; p != start; p = parents[p]) {
+			length++;
+		}
+		if (length > path.length || (positions != null && length > positions.length)) {
+			throw new IllegalArgumentException("Path too long (" + length + " moves)");
+		}
+		Shape shape = PackedTetromino.getShape(placement);
+		Color color = PackedTetromino.getColor(placement);
+		int i = length;
+		for (int p = position; p != start; p = parents[p]) {
+			path[--i] = MOVES[moves[p]];
+			if (positions != null) {
+				int x = (p % columns) - MARGIN;
+				int y = ((p / columns) % rows) - MARGIN;
+				Orientation orientation = ORIENTATIONS[p / (columns * rows)];
+				positions[i] = PackedTetromino.pack(x, y, shape.getTetromino(orientation, color));
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Get the maximum number of placements which can be found on the board.
+	 *
+	 * @return
+	 */
+	public int getMaxPlacements() {
+		return parents.length;
+	}
+
+	/**
+	 * Get the maximum number of moves which can be needed to reach a placement.
+	 *
+	 * @return
+	 */
+	public int getMaxPathLength() {
+		return parents.length;
+	}
+
+	// ======================================================================
+	// Helper methods
+	// ======================================================================
+
+	/**
+	 * Explore a given position, if it is valid and has not already been visited.
+	 *
+	 * @return The updated tail of the queue.
+	 */
+	private int explore(Bitboard board, int s, int x, int y, int o, int parent, int move, int tail) {
+		int position = index(x, y, o);
+		if (position >= 0 && !isVisited(position) && fits(board, s, o, x, y)) {
+			visit(position, parent, move);
+			queue[tail++] = encode(x, y, o);
+		}
+		return tail;
+	}
+
+	/**
+	 * Check whether a tetromino of a given shape and orientation can be placed at
+	 * a given position. This is equivalent to
+	 * {@link Bitboard#canPlace(Shape, Orientation, int, int)}, but avoids looking
+	 * up the shape's tables on every call.
+	 */
+	private static boolean fits(Bitboard board, int s, int o, int x, int y) {
+		int minX = x + MIN_X[s][o];
+		int minY = y + MIN_Y[s][o];
+		int maxY = y + MAX_Y[s][o];
+		if (minX < 0 || x + MAX_X[s][o] >= board.getWidth() || minY < 0 || maxY >= board.getHeight()) {
+			return false;
+		}
+		long[] masks = MASKS[s][o];
+		for (int i = minY; i <= maxY; ++i) {
+			if ((board.getRow(i) & (masks[i - minY] << minX)) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Check whether the cells occupied by a tetromino at a given position have not
+	 * already been reported as a placement and, if so, record them.
+	 */
+	private boolean isNewPlacement(int s, int x, int y, int o) {
+		int key = index(x + MIN_X[s][o], y + MIN_Y[s][o], CANONICAL[s][o]);
+		long bit = 1L << key;
+		if ((placed[key >>> 6] & bit) != 0) {
+			return false;
+		}
+		placed[key >>> 6] |= bit;
+		return true;
+	}
+
+	private boolean isVisited(int position) {
+		return (visited[position >>> 6] & (1L << position)) != 0;
+	}
+
+	private void visit(int position, int parent, int move) {
+		visited[position >>> 6] |= 1L << position;
+		parents[position] = parent;
+		moves[position] = (byte) move;
+	}
+
+	/**
+	 * Determine the index of a given position, or <code>-1</code> if it is too far
+	 * outside the board to be valid.
+	 */
+	private int index(int x, int y, int o) {
+		x += MARGIN;
+		y += MARGIN;
+		if (x < 0 || x >= columns || y < 0 || y >= rows) {
+			return -1;
+		}
+		return (((o * rows) + y) * columns) + x;
+	}
+
+	/**
+	 * Encode a position as an entry in the queue, such that its coordinates can be
+	 * recovered without division.
+	 */
+	private static int encode(int x, int y, int o) {
+		return (o << 24) | ((y + MARGIN) << 12) | (x + MARGIN);
+	}
+
+	private void resize(int width, int height) {
+		if (height + (2 * MARGIN) > 0xFFF) {
+			throw new IllegalArgumentException("Invalid height (" + height + ")");
+		}
+		columns = width + (2 * MARGIN);
+		rows = height + (2 * MARGIN);
+		int n = columns * rows * ORIENTATIONS.length;
+		visited = new long[(n + 63) >>> 6];
+		placed = new long[(n + 63) >>> 6];
+		queue = new int[n];
+		parents = new int[n];
+		moves = new byte[n];
+		start = -1;
+	}
+
+	/**
+	 * Check whether two orientations of a given shape occupy the same cells
+	 * relative to the bottom-left of their bounding boxes.
+	 */
+	private static boolean isSameCells(Shape shape, Orientation first, Orientation second) {
+		Rectangle r1 = shape.getBoundingBox(first);
+		Rectangle r2 = shape.getBoundingBox(second);
+		int h = r1.getMaxY() - r1.getMinY();
+		if (h != r2.getMaxY() - r2.getMinY() || r1.getMaxX() - r1.getMinX() != r2.getMaxX() - r2.getMinX()) {
+			return false;
+		}
+		for (int i = 0; i <= h; ++i) {
+			if (shape.getRowMask(first, i) != shape.getRowMask(second, i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
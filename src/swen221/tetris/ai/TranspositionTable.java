@@ -0,0 +1,216 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.ai;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import swen221.tetris.logic.Zobrist;
+
+/**
+ * A fixed-size table recording what is known about boards which have already
+ * been searched, indexed by their hash (see {@link Zobrist}). This allows a
+ * search to recognise a board it has reached before through a different
+ * sequence of moves. Each entry records a score, the depth at which the board
+ * was found, and a move.
+ * <p>
+ * The table can be used by several threads at once without locking. Each entry
+ * is held as two words: the data itself, and the hash exclusive-or'd with the
+ * data. If two threads write the same entry at once, such that the words come
+ * from different writes, then the hash recovered from the entry will not match
+ * and it is simply treated as missing.
+ * </p>
+ * <p>
+ * Entries are grouped into buckets of two. When storing a board which is not
+ * already present, the first entry of its bucket is replaced only if the new
+ * board was found at the same depth or deeper, or the entry is from an earlier
+ * search. Otherwise, the second entry is replaced regardless. Hence, entries
+ * which are expensive to recompute tend to survive, whilst recent entries are
+ * always recorded.
+ * </p>
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public final class TranspositionTable {
+	/**
+	 * Returned when a board is not found in the table. No valid entry is ever
+	 * zero.
+	 */
+	public static final long MISS = 0;
+
+	// Layout of each entry's data, from least significant bit:
+	//
+	// | score (32) | move (16) | depth (8) | age (7) | valid (1) |
+	private static final int MOVE_SHIFT = 32;
+	private static final int DEPTH_SHIFT = 48;
+	private static final int AGE_SHIFT = 56;
+	private static final long VALID = 1L << 63;
+	private static final int AGE_MASK = 0x7F;
+
+	/**
+	 * The maximum depth which can be recorded.
+	 */
+	public static final int MAX_DEPTH = 0xFF;
+
+	/**
+	 * The maximum move which can be recorded.
+	 */
+	public static final int MAX_MOVE = 0xFFFF;
+
+	/**
+	 * Holds two words for each entry, as described above.
+	 */
+	private final AtomicLongArray entries;
+
+	/**
+	 * Selects the bucket for a given hash.
+	 */
+	private final int mask;
+
+	/**
+	 * Identifies the current search, such that entries from earlier searches can
+	 * be ignored.
+	 */
+	private volatile int age;
+
+	/**
+	 * Construct a table with room for at least a given number of entries.
+	 *
+	 * @param capacity
+	 */
+	public TranspositionTable(int capacity) {
+		if (capacity < 2 || capacity > (1 << 29)) {
+			throw new IllegalArgumentException("Invalid capacity (" + capacity + ")");
+		}
+		int buckets = 1;
+		while (buckets * 2 < capacity) {
+			buckets <<= 1;
+		}
+		this.entries = new AtomicLongArray(buckets * 4);
+		this.mask = buckets - 1;
+	}
+
+	/**
+	 * Get the number of entries in this table.
+	 *
+	 * @return
+	 */
+	public int getCapacity() {
+		return entries.length() / 2;
+	}
+
+	/**
+	 * Start a new search, such that the entries recorded so far are no longer
+	 * found. This only needs to clear the table when the age wraps around, which
+	 * happens once every 128 searches. This should not be called whilst the table
+	 * is being used by other threads.
+	 */
+	public void newSearch() {
+		int next = (age + 1) & AGE_MASK;
+		if (next == 0) {
+			for (int i = 0; i != entries.length(); ++i) {
+				entries.set(i, MISS);
+			}
+		}
+		age = next;
+	}
+
+	/**
+	 * Look up a board in this table.
+	 *
+	 * @param hash The hash of the board.
+	 * @return The data recorded for the board, or <code>MISS</code> if it was not
+	 *         found during the current search.
+	 */
+	public long probe(long hash) {
+		int i = bucket(hash);
+		int current = age;
+		for (int j = i; j != i + 4; j += 2) {
+			long data = entries.get(j + 1);
+			if ((entries.get(j) ^ data) == hash && data != MISS && getAge(data) == current) {
+				return data;
+			}
+		}
+		return MISS;
+	}
+
+	/**
+	 * Record what is known about a board in this table.
+	 *
+	 * @param hash  The hash of the board.
+	 * @param score The score of the board.
+	 * @param depth The depth at which the board was found.
+	 * @param move  The move which leads to the board.
+	 */
+	public void store(long hash, float score, int depth, int move) {
+		if (depth < 0 || depth > MAX_DEPTH) {
+			throw new IllegalArgumentException("Invalid depth (" + depth + ")");
+		} else if (move < 0 || move > MAX_MOVE) {
+			throw new IllegalArgumentException("Invalid move (" + move + ")");
+		}
+		int current = age;
+		long data = VALID | ((long) current << AGE_SHIFT) | ((long) depth << DEPTH_SHIFT)
+				| ((long) move << MOVE_SHIFT) | (Float.floatToRawIntBits(score) & 0xFFFFFFFFL);
+		int i = bucket(hash);
+		int j;
+		long first = entries.get(i + 1);
+		long second = entries.get(i + 3);
+		if ((entries.get(i) ^ first) == hash && first != MISS) {
+			// Already in the depth-preferred entry
+			j = (depth >= getDepth(first) || getAge(first) != current) ? i : i + 2;
+		} else if ((entries.get(i + 2) ^ second) == hash && second != MISS) {
+			// Already in the always-replace entry
+			j = i + 2;
+		} else if (first == MISS || getAge(first) != current || depth >= getDepth(first)) {
+			j = i;
+		} else {
+			j = i + 2;
+		}
+		entries.set(j, hash ^ data);
+		entries.set(j + 1, data);
+	}
+
+	/**
+	 * Get the score from the data recorded for a board.
+	 *
+	 * @param data
+	 * @return
+	 */
+	public static float getScore(long data) {
+		return Float.intBitsToFloat((int) data);
+	}
+
+	/**
+	 * Get the move from the data recorded for a board.
+	 *
+	 * @param data
+	 * @return
+	 */
+	public static int getMove(long data) {
+		return (int) (data >>> MOVE_SHIFT) & MAX_MOVE;
+	}
+
+	/**
+	 * Get the depth from the data recorded for a board.
+	 *
+	 * @param data
+	 * @return
+	 */
+	public static int getDepth(long data) {
+		return (int) (data >>> DEPTH_SHIFT) & MAX_DEPTH;
+	}
+
+	private static int getAge(long data) {
+		return (int) (data >>> AGE_SHIFT) & AGE_MASK;
+	}
+
+	/**
+	 * Determine the index of the first word of the bucket for a given hash. Since
+	 * every bit of a hash depends on every cell of the board, its low bits alone
+	 * are sufficient.
+	 */
+	private int bucket(long hash) {
+		return ((int) hash & mask) * 4;
+	}
+}
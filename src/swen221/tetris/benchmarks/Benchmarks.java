@@ -0,0 +1,31 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every benchmark with the GC profiler enabled, such that the allocation
+ * rate of each benchmark is reported alongside its time. Any command-line
+ * arguments are passed through to JMH, so (for example) a subset of benchmarks
+ * can be run with <code>Benchmarks BoardBenchmarks</code>, or results written
+ * to a file with <code>-rf json -rff results.json</code>.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public class Benchmarks {
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.include(Benchmarks.class.getPackage().getName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
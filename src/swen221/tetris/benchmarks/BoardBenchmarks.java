@@ -0,0 +1,105 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import swen221.tetris.logic.Board;
+import swen221.tetris.tetromino.ActiveTetromino;
+import swen221.tetris.tetromino.PackedTetromino;
+
+/**
+ * Benchmarks for the operations on a board which are performed most often.
+ * Every placement benchmark considers all shapes, orientations and columns in
+ * turn, such that the results are not skewed towards any particular tetromino.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmarks {
+	/**
+	 * The fraction of the board which is filled.
+	 */
+	@Param({ "0.25", "0.5", "0.75" })
+	public double fill;
+
+	private Board board;
+	private Board full;
+	private long[] packed;
+	private ActiveTetromino[] unpacked;
+
+	@Setup
+	public void setup() {
+		board = Boards.fill(new Board(null, Boards.WIDTH, Boards.HEIGHT), fill);
+		// Four full rows with the remainder of the fill above them
+		full = Boards.fillRows(Boards.fill(new Board(null, Boards.WIDTH, Boards.HEIGHT), fill), 4);
+		packed = Boards.candidates(board);
+		unpacked = new ActiveTetromino[packed.length];
+		for (int i = 0; i != packed.length; ++i) {
+			unpacked[i] = PackedTetromino.unpack(packed[i]);
+		}
+	}
+
+	@Benchmark
+	public int canPlaceTetromino() {
+		int count = 0;
+		for (ActiveTetromino t : unpacked) {
+			if (board.canPlaceTetromino(t)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int canPlacePackedTetromino() {
+		int count = 0;
+		for (long t : packed) {
+			if (board.canPlaceTetromino(t)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public long dropTetromino() {
+		long sum = 0;
+		for (long t : packed) {
+			if (board.canPlaceTetromino(t)) {
+				sum += board.dropTetromino(t);
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Copy a board. This is the baseline for {@link #checkForFullLines()}, which
+	 * must copy the board before clearing it.
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public Board copy() {
+		return new Board(full);
+	}
+
+	@Benchmark
+	public int checkForFullLines() {
+		return new Board(full).checkForFullLines();
+	}
+
+	@Benchmark
+	public int checkForNoFullLines() {
+		return board.checkForFullLines();
+	}
+}
@@ -0,0 +1,105 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.benchmarks;
+
+import java.util.Random;
+
+import swen221.tetris.logic.Board;
+import swen221.tetris.tetromino.PackedTetromino;
+import swen221.tetris.tetromino.Shape;
+import swen221.tetris.tetromino.Tetromino;
+import swen221.tetris.tetromino.Tetromino.Color;
+import swen221.tetris.tetromino.Tetromino.Orientation;
+
+/**
+ * Constructs the boards used by the benchmarks. These are filled at random from
+ * a fixed seed, such that every run of a benchmark sees exactly the same boards.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+final class Boards {
+	/**
+	 * The width of every board used for benchmarking.
+	 */
+	static final int WIDTH = 10;
+
+	/**
+	 * The height of every board used for benchmarking.
+	 */
+	static final int HEIGHT = 20;
+
+	/**
+	 * The seed from which all boards are filled.
+	 */
+	static final long SEED = 221;
+
+	private Boards() {
+	}
+
+	/**
+	 * Fill the lower part of a board at random. Each filled row has around 70% of
+	 * its cells occupied, but always at least one gap such that no row is full.
+	 *
+	 * @param board The board to fill.
+	 * @param fill  The fraction of rows to fill, counting up from the bottom.
+	 * @return
+	 */
+	static Board fill(Board board, double fill) {
+		Random random = new Random(SEED);
+		Color[] colors = Color.values();
+		int rows = (int) (board.getHeight() * fill);
+		for (int y = 0; y != rows; ++y) {
+			int gap = random.nextInt(board.getWidth());
+			for (int x = 0; x != board.getWidth(); ++x) {
+				if (x != gap && random.nextInt(10) < 7) {
+					Color color = colors[random.nextInt(colors.length)];
+					board.setPlacedTetrominoAt(x, y, Shape.O.getTetromino(Orientation.NORTH, color));
+				}
+			}
+		}
+		return board;
+	}
+
+	/**
+	 * Fill a given number of rows at the bottom of a board completely.
+	 *
+	 * @param board The board to fill.
+	 * @param rows  The number of rows to fill.
+	 * @return
+	 */
+	static Board fillRows(Board board, int rows) {
+		Tetromino filler = Shape.O.getTetromino(Orientation.NORTH, Color.RED);
+		for (int y = 0; y != rows; ++y) {
+			for (int x = 0; x != board.getWidth(); ++x) {
+				board.setPlacedTetrominoAt(x, y, filler);
+			}
+		}
+		return board;
+	}
+
+	/**
+	 * Determine every placement of every shape in every orientation across the
+	 * width of a board, at the height where new tetrominos are issued. Some of
+	 * these will be partially off the board.
+	 *
+	 * @param board The board determining the range of positions.
+	 * @return
+	 */
+	static long[] candidates(Board board) {
+		Shape[] shapes = Shape.values();
+		Orientation[] orientations = Orientation.values();
+		long[] candidates = new long[shapes.length * orientations.length * board.getWidth()];
+		int i = 0;
+		for (Shape shape : shapes) {
+			for (Orientation orientation : orientations) {
+				for (int x = 0; x != board.getWidth(); ++x) {
+					Tetromino t = shape.getTetromino(orientation, Color.BLUE);
+					candidates[i++] = PackedTetromino.pack(x, board.getHeight() - 2, t);
+				}
+			}
+		}
+		return candidates;
+	}
+}
@@ -0,0 +1,86 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import swen221.tetris.logic.Game;
+import swen221.tetris.moves.Move;
+import swen221.tetris.simulation.Player;
+import swen221.tetris.simulation.ScriptedPlayer;
+import swen221.tetris.tetromino.BagSequence;
+
+/**
+ * Benchmarks for clocking a game, which covers gravity, landing, clearing lines
+ * and issuing new tetrominos. Every game starts from a partially filled board,
+ * and a scripted player moves the tetrominos around the board. Whenever a game
+ * ends, another is started with the next seed.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmarks {
+	/**
+	 * The fraction of the board which is filled at the start of each game.
+	 */
+	@Param({ "0", "0.25", "0.5" })
+	public double fill;
+
+	private Game game;
+	private Player player;
+	private long seed;
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		seed = Boards.SEED;
+		newGame();
+	}
+
+	private void newGame() {
+		game = new Game(new BagSequence(seed++), Boards.WIDTH, Boards.HEIGHT);
+		player = new ScriptedPlayer("LLX..RCX..CCRRX..LLLCX..RRRRX..LLLLX..");
+		Boards.fill(game.getActiveBoard(), fill);
+	}
+
+	/**
+	 * Clock the game without any moves being made, such that tetrominos simply
+	 * fall under gravity.
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public int clock() {
+		if (game.isGameOver()) {
+			newGame();
+		}
+		game.clock();
+		return game.getScore();
+	}
+
+	/**
+	 * Clock the game after applying any moves made by the player, as done by the
+	 * simulator.
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public int play() {
+		if (game.isGameOver()) {
+			newGame();
+		}
+		for (Move move = player.getMove(game); move != null; move = player.getMove(game)) {
+			game.apply(move);
+		}
+		game.clock();
+		return game.getScore();
+	}
+}
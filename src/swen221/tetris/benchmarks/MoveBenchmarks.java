@@ -0,0 +1,134 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import swen221.tetris.logic.Board;
+import swen221.tetris.moves.*;
+import swen221.tetris.tetromino.PackedTetromino;
+
+/**
+ * Benchmarks for validating and applying moves. The active tetromino is chosen
+ * from every shape, orientation and column in turn, such that the results are
+ * not skewed towards any particular tetromino.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBenchmarks {
+	/**
+	 * The fraction of the board which is filled.
+	 */
+	@Param({ "0.25", "0.5", "0.75" })
+	public double fill;
+
+	private final Move left = new MoveLeft();
+	private final Move right = new MoveRight();
+	private final Move down = new MoveDown();
+	private final Move rotate = new ClockwiseRotation();
+	private final Move drop = new DropMove();
+
+	/**
+	 * One board for each placement of the active tetromino.
+	 */
+	private Board[] boards;
+
+	/**
+	 * The board used by the next invocation of a benchmark.
+	 */
+	private int next;
+
+	@Setup
+	public void setup() {
+		Board board = Boards.fill(new Board(null, Boards.WIDTH, Boards.HEIGHT), fill);
+		long[] candidates = Boards.candidates(board);
+		int n = 0;
+		for (long t : candidates) {
+			if (board.canPlaceTetromino(t)) {
+				n++;
+			}
+		}
+		boards = new Board[n];
+		n = 0;
+		for (long t : candidates) {
+			if (board.canPlaceTetromino(t)) {
+				Board b = new Board(board);
+				b.setPackedActiveTetromino(t);
+				boards[n++] = b;
+			}
+		}
+	}
+
+	private Board nextBoard() {
+		Board board = boards[next];
+		next = (next + 1) % boards.length;
+		return board;
+	}
+
+	@Benchmark
+	public boolean isValidLeft() {
+		return left.isValid(nextBoard());
+	}
+
+	@Benchmark
+	public boolean isValidRight() {
+		return right.isValid(nextBoard());
+	}
+
+	@Benchmark
+	public boolean isValidDown() {
+		return down.isValid(nextBoard());
+	}
+
+	@Benchmark
+	public boolean isValidRotation() {
+		return rotate.isValid(nextBoard());
+	}
+
+	@Benchmark
+	public long applyDrop() {
+		return drop.apply(nextBoard()).getPackedActiveTetromino();
+	}
+
+	@Benchmark
+	public long applyLeft() {
+		Board board = nextBoard();
+		if (left.isValid(board)) {
+			board = left.apply(board);
+		}
+		return board.getPackedActiveTetromino();
+	}
+
+	/**
+	 * Apply a drop move to the board without going through the move itself. This
+	 * is the baseline for {@link #applyDrop()}.
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public long dropTetromino() {
+		Board board = nextBoard();
+		return board.dropTetromino(board.getPackedActiveTetromino());
+	}
+
+	/**
+	 * Unpack the active tetromino without any cached copy, as happens for moves
+	 * which go through {@link Move#getCandidate(Board)}.
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public Object unpackActiveTetromino() {
+		return PackedTetromino.unpack(nextBoard().getPackedActiveTetromino());
+	}
+}
@@ -0,0 +1,64 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import swen221.tetris.ai.Bitboard;
+import swen221.tetris.ai.PlacementFinder;
+import swen221.tetris.logic.Board;
+import swen221.tetris.tetromino.PackedTetromino;
+import swen221.tetris.tetromino.Shape;
+import swen221.tetris.tetromino.Tetromino.Color;
+import swen221.tetris.tetromino.Tetromino.Orientation;
+
+/**
+ * Benchmarks for finding every placement of a newly issued tetromino, as done
+ * by computer players. Each invocation searches for every shape in turn.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlacementBenchmarks {
+	/**
+	 * The fraction of the board which is filled.
+	 */
+	@Param({ "0", "0.25", "0.5", "0.75" })
+	public double fill;
+
+	private Bitboard board;
+	private long[] tetrominos;
+	private PlacementFinder finder;
+	private long[] placements;
+
+	@Setup
+	public void setup() {
+		board = new Bitboard(Boards.fill(new Board(null, Boards.WIDTH, Boards.HEIGHT), fill));
+		Shape[] shapes = Shape.values();
+		tetrominos = new long[shapes.length];
+		for (int i = 0; i != shapes.length; ++i) {
+			tetrominos[i] = PackedTetromino.pack(Boards.WIDTH / 2, Boards.HEIGHT - 2,
+					shapes[i].getTetromino(Orientation.NORTH, Color.BLUE));
+		}
+		finder = new PlacementFinder(Boards.WIDTH, Boards.HEIGHT);
+		placements = new long[finder.getMaxPlacements()];
+	}
+
+	@Benchmark
+	public int find() {
+		int count = 0;
+		for (long t : tetrominos) {
+			count += finder.find(board, t, placements);
+		}
+		return count;
+	}
+}
@@ -0,0 +1,144 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import swen221.tetris.logic.Board;
+import swen221.tetris.logic.Rectangle;
+import swen221.tetris.tetromino.ActiveTetromino;
+import swen221.tetris.tetromino.BagSequence;
+import swen221.tetris.tetromino.PackedTetromino;
+import swen221.tetris.tetromino.RandomSequence;
+
+/**
+ * Benchmarks for querying individual tetrominos, as done when rendering the
+ * board or testing placements. These consider every shape and orientation.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TetrominoBenchmarks {
+	private ActiveTetromino[] tetrominos;
+	private long[] packed;
+	private RandomSequence random;
+	private BagSequence bag;
+
+	@Setup
+	public void setup() {
+		random = new RandomSequence(Boards.SEED);
+		bag = new BagSequence(Boards.SEED);
+		packed = Boards.candidates(new Board(null, Boards.WIDTH, Boards.HEIGHT));
+		tetrominos = new ActiveTetromino[packed.length];
+		for (int i = 0; i != packed.length; ++i) {
+			tetrominos[i] = PackedTetromino.unpack(packed[i]);
+		}
+	}
+
+	/**
+	 * Check every cell in the five by five square around each tetromino.
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public int isWithin() {
+		int count = 0;
+		for (int i = 0; i != tetrominos.length; ++i) {
+			int cx = PackedTetromino.getX(packed[i]);
+			int cy = PackedTetromino.getY(packed[i]);
+			for (int y = cy - 2; y <= cy + 2; ++y) {
+				for (int x = cx - 2; x <= cx + 2; ++x) {
+					if (tetrominos[i].isWithin(x, y)) {
+						count++;
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int isWithinPacked() {
+		int count = 0;
+		for (long t : packed) {
+			int cx = PackedTetromino.getX(t);
+			int cy = PackedTetromino.getY(t);
+			for (int y = cy - 2; y <= cy + 2; ++y) {
+				for (int x = cx - 2; x <= cx + 2; ++x) {
+					if (PackedTetromino.isWithin(t, x, y)) {
+						count++;
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Compute the bounding box of each tetromino, as done the first time it is
+	 * requested from an active tetromino. This does not use the active
+	 * tetrominos, since they cache their bounding box after the first invocation.
+	 *
+	 * @param bh
+	 */
+	@Benchmark
+	public void getBoundingBox(Blackhole bh) {
+		for (long t : packed) {
+			Rectangle box = PackedTetromino.getShape(t).getBoundingBox(PackedTetromino.getOrientation(t));
+			bh.consume(box.translate(PackedTetromino.getX(t), PackedTetromino.getY(t)));
+		}
+	}
+
+	/**
+	 * Get the cached bounding box of each active tetromino, as done on every
+	 * later request.
+	 *
+	 * @param bh
+	 */
+	@Benchmark
+	public void getBoundingBoxCached(Blackhole bh) {
+		for (ActiveTetromino t : tetrominos) {
+			bh.consume(t.getBoundingBox());
+		}
+	}
+
+	@Benchmark
+	public void rotate(Blackhole bh) {
+		for (ActiveTetromino t : tetrominos) {
+			bh.consume(t.rotate(1));
+		}
+	}
+
+	@Benchmark
+	public void rotatePacked(Blackhole bh) {
+		for (long t : packed) {
+			bh.consume(PackedTetromino.rotate(t, 1));
+		}
+	}
+
+	/**
+	 * Issue the next tetromino from a sequence, as done whenever a tetromino is
+	 * made active.
+	 *
+	 * @return
+	 */
+	@Benchmark
+	public Object nextRandom() {
+		return random.next();
+	}
+
+	@Benchmark
+	public Object nextBag() {
+		return bag.next();
+	}
+}
@@ -0,0 +1,117 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.gui;
+
+import java.awt.*;
+
+import javax.swing.JComponent;
+
+import swen221.tetris.logic.Game;
+import swen221.tetris.logic.Snapshot;
+
+/**
+ * Draws the board of a game onto a single component. The thread running the
+ * game publishes immutable snapshots of it (see {@link Game#snapshot(Snapshot)})
+ * and this draws only the most recent one, hence painting never holds up the
+ * game. Furthermore, only those rows which differ from the previous snapshot are
+ * repainted.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+@SuppressWarnings("serial")
+public class BoardCanvas extends JComponent {
+	/**
+	 * The width and height of each cell in pixels.
+	 */
+	public static final int CELL_SIZE = 30;
+
+	/**
+	 * The space between adjacent cells in pixels.
+	 */
+	public static final int GAP = 1;
+
+	/**
+	 * The most recently published snapshot. This is the only state shared between
+	 * the game and the user interface.
+	 */
+	private volatile Snapshot frame;
+
+	public BoardCanvas(Snapshot frame) {
+		this.frame = frame;
+		setOpaque(true);
+		setBackground(new Color(0xEE, 0xEE, 0xEE));
+	}
+
+	/**
+	 * Get the most recently published snapshot.
+	 *
+	 * @return
+	 */
+	public Snapshot getFrame() {
+		return frame;
+	}
+
+	@Override
+	public Dimension getPreferredSize() {
+		Snapshot f = frame;
+		return new Dimension((f.getWidth() * (CELL_SIZE + GAP)) - GAP, (f.getHeight() * (CELL_SIZE + GAP)) - GAP);
+	}
+
+	/**
+	 * Publish a new snapshot to be drawn, and request that those rows which
+	 * differ from the previous one are repainted. Each run of adjacent rows is
+	 * repainted as one region. This can be called from any thread, although
+	 * snapshots must be published in the order they were taken.
+	 *
+	 * @param next The snapshot to draw.
+	 * @return The snapshot previously published.
+	 */
+	public Snapshot publish(Snapshot next) {
+		Snapshot previous = frame;
+		frame = next;
+		int pitch = CELL_SIZE + GAP;
+		int height = next.getHeight();
+		int from = 0;
+		while (from < height) {
+			if (next.isRowSharedWith(previous, from)) {
+				from++;
+			} else {
+				int to = from + 1;
+				while (to < height && !next.isRowSharedWith(previous, to)) {
+					to++;
+				}
+				// NOTE: rows are drawn from the top of the board down
+				repaint(0, (height - to) * pitch, getWidth(), (to - from) * pitch);
+				from = to;
+			}
+		}
+		return previous;
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		// NOTE: read the snapshot once, such that all rows come from the same one
+		Snapshot f = frame;
+		int width = f.getWidth();
+		int height = f.getHeight();
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) {
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+		}
+		int pitch = CELL_SIZE + GAP;
+		g.setColor(getBackground());
+		g.fillRect(clip.x, clip.y, clip.width, clip.height);
+		// Determine the rows intersecting the clip region, counting down from the top
+		int first = Math.max(0, clip.y / pitch);
+		int last = Math.min(height - 1, (clip.y + clip.height - 1) / pitch);
+		for (int row = first; row <= last; ++row) {
+			int y = height - row - 1;
+			for (int x = 0; x != width; ++x) {
+				g.setColor(Tetris.toAwtColor(f.getColorAt(x, y)));
+				g.fillRect(x * pitch, row * pitch, CELL_SIZE, CELL_SIZE);
+			}
+		}
+	}
+}
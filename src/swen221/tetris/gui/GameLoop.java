@@ -0,0 +1,185 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.gui;
+
+import java.awt.Window;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.swing.*;
+
+import swen221.tetris.logic.Game;
+import swen221.tetris.logic.InputQueue;
+import swen221.tetris.logic.Snapshot;
+
+/**
+ * Runs a game on its own thread, which is the only thread to touch the game.
+ * This applies the moves queued by the user, clocks the game at a rate
+ * determined by the current level, and publishes snapshots of the result to be
+ * drawn (see {@link BoardCanvas}).
+ * <p>
+ * The game is clocked on a fixed timestep. That is, each cycle is due a fixed
+ * period after the previous one was due, rather than after it actually
+ * happened, hence the game does not drift. If the thread falls behind (e.g.
+ * because it was not scheduled for a while) then it catches up by clocking
+ * several cycles at once, up to a limit beyond which the missed cycles are
+ * dropped. Snapshots are published separately, at most once per frame and only
+ * when something has changed. Between times, the thread waits until either
+ * the next cycle or frame is due, or the user makes a move.
+ * </p>
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public class GameLoop implements Runnable {
+	/**
+	 * The minimum time between snapshots being published, in nanoseconds.
+	 */
+	public static final long FRAME_NANOS = 1_000_000_000L / 60;
+
+	/**
+	 * The maximum number of cycles which are clocked at once when catching up.
+	 */
+	public static final int MAX_CATCH_UP = 5;
+
+	private final Game game;
+	private final InputQueue input;
+	private final BoardCanvas display;
+	private final JComponent next;
+	private final JComponent info;
+	private final Thread thread;
+	private volatile boolean running;
+
+	public GameLoop(Game game, InputQueue input, BoardCanvas display, JComponent next, JComponent info) {
+		this.game = game;
+		this.input = input;
+		this.display = display;
+		this.next = next;
+		this.info = info;
+		this.thread = new Thread(this, "Game Loop");
+	}
+
+	/**
+	 * Start running the game.
+	 */
+	public void start() {
+		running = true;
+		thread.start();
+	}
+
+	/**
+	 * Stop running the game, without waiting for the thread to finish. This can
+	 * be called from any thread.
+	 */
+	public void stop() {
+		running = false;
+		// NOTE: wake the thread if it is waiting (see InputQueue.await()).
+		LockSupport.unpark(thread);
+	}
+
+	/**
+	 * Wait for the thread running the game to finish, after it has been stopped.
+	 *
+	 * @throws InterruptedException
+	 */
+	public void join() throws InterruptedException {
+		thread.join();
+	}
+
+	@Override
+	public void run() {
+		long now = System.nanoTime();
+		long nextCycle = now + calculateDelayNanos(0);
+		long nextFrame = now;
+		boolean changed = true;
+		while (running) {
+			// Wait until either the next cycle is due, the next frame is due and there
+			// is something to draw, or the user makes a move.
+			long wake = changed ? Math.min(nextCycle, nextFrame) : nextCycle;
+			long remaining = wake - System.nanoTime();
+			if (remaining > 0) {
+				input.await(remaining);
+			}
+			now = System.nanoTime();
+			// Apply the user's moves before any gravity, such that they always take
+			// effect at the same point within a cycle.
+			if (input.drainTo(game) > 0) {
+				changed = true;
+			}
+			boolean gameOver = false;
+			for (int i = 0; i != MAX_CATCH_UP && now - nextCycle >= 0 && !gameOver; ++i) {
+				// apply gravity, etc.
+				game.clock();
+				changed = true;
+				gameOver = game.isGameOver();
+				nextCycle += calculateDelayNanos(game.getLines());
+			}
+			if (now - nextCycle >= 0) {
+				// Too far behind to catch up, so drop the missed cycles
+				nextCycle = now + calculateDelayNanos(game.getLines());
+			}
+			if (changed && (gameOver || now - nextFrame >= 0)) {
+				publish();
+				changed = false;
+				nextFrame = now + FRAME_NANOS;
+			}
+			if (gameOver) {
+				gameOver();
+				// NOTE: the time spent in the dialog does not count against the game
+				nextCycle = System.nanoTime() + calculateDelayNanos(game.getLines());
+				changed = true;
+			}
+		}
+	}
+
+	/**
+	 * Publish a snapshot of the game, which repaints only the rows of the board
+	 * which have changed. The remainder of the display is also repainted only
+	 * when it has changed.
+	 */
+	private void publish() {
+		Snapshot after = game.snapshot(display.getFrame());
+		Snapshot before = display.publish(after);
+		if (before.getTetrominoCount() != after.getTetrominoCount()) {
+			next.repaint();
+		}
+		if (before.getScore() != after.getScore()) {
+			info.repaint();
+		}
+	}
+
+	/**
+	 * Handle a game over event.
+	 */
+	private void gameOver() {
+		int choice = JOptionPane.showConfirmDialog(null, "GameOver! Would you play again?", "Select an option...",
+				JOptionPane.YES_NO_OPTION);
+		if (choice == 0) {
+			game.reset();
+		} else {
+			// Stop the game and close the window, after which the program exits
+			running = false;
+			SwingUtilities.invokeLater(() -> {
+				Window window = SwingUtilities.getWindowAncestor(display);
+				if (window != null) {
+					window.dispose();
+				}
+			});
+		}
+	}
+
+	/**
+	 * This calculates the speed at which the game should be clocked, which is
+	 * determined by the current level.
+	 *
+	 * @param lines
+	 * @return The time between cycles in nanoseconds.
+	 */
+	private static long calculateDelayNanos(int lines) {
+		// A quick game is a good game :)
+		int level = lines / 10;
+		int delta = Math.min(level - 4, 0) * 10;
+		// ensure don't go below 10
+		return Math.max(10, 500 - delta) * 1_000_000L;
+	}
+}
@@ -0,0 +1,66 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.gui;
+
+import java.awt.*;
+
+import javax.swing.JComponent;
+
+import swen221.tetris.logic.Snapshot;
+import swen221.tetris.tetromino.Tetromino;
+
+/**
+ * Draws the next tetromino of a game onto a single component, taken from the
+ * snapshot most recently published to the board (see {@link BoardCanvas}). This
+ * only needs repainting when a new tetromino is made active (see
+ * {@link Snapshot#getTetrominoCount()}).
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+@SuppressWarnings("serial")
+public class NextTetrominoCanvas extends JComponent {
+	private static final int COLUMNS = 5;
+	private static final int ROWS = 4;
+
+	private final BoardCanvas board;
+
+	public NextTetrominoCanvas(BoardCanvas board) {
+		this.board = board;
+		setOpaque(true);
+		setBackground(new Color(0xEE, 0xEE, 0xEE));
+	}
+
+	@Override
+	public Dimension getPreferredSize() {
+		int pitch = BoardCanvas.CELL_SIZE + BoardCanvas.GAP;
+		Insets insets = getInsets();
+		return new Dimension((COLUMNS * pitch) - BoardCanvas.GAP + insets.left + insets.right,
+				(ROWS * pitch) - BoardCanvas.GAP + insets.top + insets.bottom);
+	}
+
+	@Override
+	public Dimension getMaximumSize() {
+		return getPreferredSize();
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		int pitch = BoardCanvas.CELL_SIZE + BoardCanvas.GAP;
+		Insets insets = getInsets();
+		g.setColor(getBackground());
+		g.fillRect(0, 0, getWidth(), getHeight());
+		Tetromino t = board.getFrame().getNextTetromino();
+		Color color = Tetris.toAwtColor(t.getColor());
+		// Cells are relative to the center of the tetromino, which is drawn in the
+		// third column of the second row from the top.
+		for (int row = 0; row != ROWS; ++row) {
+			for (int col = 0; col != COLUMNS; ++col) {
+				g.setColor(t.isWithin(col - 2, 2 - row) ? color : Color.WHITE);
+				g.fillRect(insets.left + (col * pitch), insets.top + (row * pitch), BoardCanvas.CELL_SIZE,
+						BoardCanvas.CELL_SIZE);
+			}
+		}
+	}
+}
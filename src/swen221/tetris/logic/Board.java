@@ -3,23 +3,74 @@
 // You may not distribute it in any other way without permission.
 package swen221.tetris.logic;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.Iterator;
 
 import swen221.tetris.tetromino.ActiveTetromino;
 import swen221.tetris.tetromino.O_Tetromino;
+import swen221.tetris.tetromino.PackedTetromino;
+import swen221.tetris.tetromino.Shape;
 import swen221.tetris.tetromino.Tetromino;
+import swen221.tetris.tetromino.Tetromino.Orientation;
 
 /**
  * A Board instance represent a board configuration for a game of Tetris. It is
  * represented as an array of rows, where every row contains a given number of
- * columns.
+ * columns. Occupancy of each row is additionally recorded as a bitmask, such
+ * that collision checks and full row detection can be performed with a few
+ * bitwise operations rather than by examining individual cells.
+ *
+ * Copies of a board share the arrays holding each row, and a row is only copied
+ * when it is first modified by a board which does not own it. Thus, copying a
+ * board and then making a move only costs as much as the rows which actually
+ * change. Note that copying a board writes to it, to record that its rows are
+ * now shared. Hence, copying is not thread-safe: a board must not be copied
+ * whilst another thread is copying, reading or modifying it.
+ *
+ * A board can also be encoded in a compact binary form, which is written to
+ * and read from a given buffer in place (see {@link #write(ByteBuffer)}). This
+ * records only the colour of each placed cell, which is all that determines
+ * how a game is played and drawn, along with the active tetromino. Cells take
+ * three bits each, and are packed twenty-one to a long as follows:
+ *
+ * <pre>
+ * | width (2) | height (2) | active (8) | cells (8 * ceil(width * height / 21)) |
+ * </pre>
+ *
+ * Here, <code>active</code> is the active tetromino in packed form, and cells
+ * are given row by row from the bottom, starting at the lowest bits of each
+ * long. Each cell is zero if it is empty, or otherwise one more than the
+ * ordinal of its colour.
  *
  * @author David J. Pearce
  * @author Marco Servetto
  */
 public class Board {
+	/**
+	 * The number of bits used to encode each cell.
+	 */
+	private static final int BITS_PER_CELL = 3;
+
+	/**
+	 * The number of cells encoded in each long.
+	 */
+	private static final int CELLS_PER_LONG = Long.SIZE / BITS_PER_CELL;
+
+	/**
+	 * The tetromino placed in a cell when decoding each cell code, such that
+	 * decoding does not allocate.
+	 */
+	private static final Tetromino[] DECODED_CELLS;
+
+	static {
+		Tetromino.Color[] colors = Tetromino.Color.values();
+		DECODED_CELLS = new Tetromino[colors.length + 1];
+		for (int i = 0; i != colors.length; ++i) {
+			DECODED_CELLS[i + 1] = Shape.O.getTetromino(Orientation.NORTH, colors[i]);
+		}
+	}
+
 	/**
 	 * The width of the board in columns.
 	 */
@@ -31,23 +82,85 @@ public class Board {
 
 	/**
 	 * A row-major representation of the board. Each location contains a reference
-	 * to the tetromino located there.
+	 * to the tetromino located there. Rows may be shared with other boards, and
+	 * must not be modified unless owned by this board.
 	 */
-	private final Tetromino[] cells;
+	private final Tetromino[][] cells;
 
 	/**
-	 * The active tetromino is the one currently being controlled.
+	 * Records which rows of <code>cells</code> are owned by this board, and hence
+	 * can be modified in place.
 	 */
-	private ActiveTetromino activeTetromino;
+	private final boolean[] owned;
+
+	/**
+	 * A row containing no tetrominos, which is shared by every empty row of this
+	 * board (and its copies). This is never owned and hence never modified.
+	 */
+	private final Tetromino[] emptyRow;
+
+	/**
+	 * The occupancy bitmask for each row of the board. Bit <code>x</code> of
+	 * <code>rows[y]</code> is set when the cell at <code>(x,y)</code> contains a
+	 * placed tetromino. This is kept in sync with <code>cells</code>, which acts as
+	 * the colour plane used for rendering.
+	 */
+	private final long[] rows;
+
+	/**
+	 * The bitmask of a completely full row.
+	 */
+	private final long fullRow;
+
+	/**
+	 * The height of each column of the board. That is, one more than the row of
+	 * the topmost placed tetromino in that column, or zero if the column is empty.
+	 * Every cell at or above this height in a column is free.
+	 */
+	private final int[] heights;
+
+	/**
+	 * The hash of the cells occupied on this board (see {@link Zobrist}). This is
+	 * updated whenever a row changes, rather than being computed on demand.
+	 */
+	private long hash;
+
+	/**
+	 * The active tetromino is the one currently being controlled. This is held in
+	 * packed form (see {@link PackedTetromino}) so that it can be moved in place
+	 * without allocating, and is <code>PackedTetromino.NONE</code> if there is no
+	 * active tetromino.
+	 */
+	private long activeTetromino = PackedTetromino.NONE;
+
+	/**
+	 * The unpacked form of the active tetromino, which is only created when
+	 * requested and is discarded whenever the active tetromino moves.
+	 */
+	private ActiveTetromino unpackedActiveTetromino;
 
 	public Board(Iterator<Tetromino> sequence, int width, int height) {
+		if (width < 1 || width > Long.SIZE) {
+			throw new IllegalArgumentException("Invalid width (" + width + ")");
+		}
 		this.width = width;
 		this.height = height;
-		this.cells = new Tetromino[width * height];
+		this.cells = new Tetromino[height][];
+		this.owned = new boolean[height];
+		this.emptyRow = new Tetromino[width];
+		Arrays.fill(cells, emptyRow);
+		this.rows = new long[height];
+		this.fullRow = -1L >>> (Long.SIZE - width);
+		this.heights = new int[width];
 	}
 
 	/**
-	 * Create an identical copy of a given board.
+	 * Create an identical copy of a given board. The copy shares its rows with
+	 * the given board, which is updated to record that it no longer owns them.
+	 * Hence, copying writes to the given board, and two threads must not copy the
+	 * same board at once. The copy unpacks its own instance of the active
+	 * tetromino when requested, such that landing it on one board does not
+	 * affect the other.
 	 *
 	 * @param other The board being copied.
 	 */
@@ -55,7 +168,16 @@ public class Board {
 		this.width = other.width;
 		this.height = other.height;
 		this.cells = Arrays.copyOf(other.cells, other.cells.length);
-		this.activeTetromino = other.activeTetromino;
+		this.owned = new boolean[height];
+		this.emptyRow = other.emptyRow;
+		// Rows are now shared, so neither board can modify them in place
+		Arrays.fill(other.owned, false);
+		this.rows = Arrays.copyOf(other.rows, other.rows.length);
+		this.fullRow = other.fullRow;
+		this.heights = Arrays.copyOf(other.heights, other.heights.length);
+		this.hash = other.hash;
+		// Includes any landed status set via the other board's unpacked form
+		this.activeTetromino = other.getPackedActiveTetromino();
 	}
 
 	/**
@@ -83,9 +205,49 @@ public class Board {
 	 * @return
 	 */
 	public ActiveTetromino getActiveTetromino() {
+		if (unpackedActiveTetromino == null) {
+			unpackedActiveTetromino = PackedTetromino.unpack(activeTetromino);
+		}
+		return unpackedActiveTetromino;
+	}
+
+	/**
+	 * Get the active tetromino in packed form (see {@link PackedTetromino}). This
+	 * is <code>PackedTetromino.NONE</code> if there is no active tetromino.
+	 *
+	 * @return
+	 */
+	public long getPackedActiveTetromino() {
+		if (unpackedActiveTetromino != null) {
+			// Account for the landed status being updated via the unpacked form
+			return PackedTetromino.setLanded(activeTetromino, unpackedActiveTetromino.getHasLanded());
+		}
 		return activeTetromino;
 	}
 
+	/**
+	 * Get the hash of this board, which accounts for both the cells occupied by
+	 * placed tetrominos and the active tetromino. Boards which are equivalent for
+	 * the purposes of searching for moves have the same hash, though boards with
+	 * the same hash may (very rarely) differ. This is maintained as the board
+	 * changes, hence is cheap to obtain.
+	 *
+	 * @return
+	 */
+	public long getHash() {
+		return hash ^ Zobrist.tetromino(PackedTetromino.setLanded(getPackedActiveTetromino(), false));
+	}
+
+	/**
+	 * Get the hash of the cells occupied by placed tetrominos on this board,
+	 * ignoring the active tetromino (see {@link Zobrist}).
+	 *
+	 * @return
+	 */
+	public long getOccupancyHash() {
+		return hash;
+	}
+
 	/**
 	 * Get any tetromino (including the active one) located at a given position on
 	 * the board. If the position is out of bounds, an exception is raised.
@@ -98,8 +260,8 @@ public class Board {
 	 * @return is null if x and/or y points out of the board.
 	 */
 	public Tetromino getTetrominoAt(int x, int y) {
-		if (activeTetromino != null && activeTetromino.isWithin(x, y)) {
-			return activeTetromino;
+		if (activeTetromino != PackedTetromino.NONE && PackedTetromino.isWithin(activeTetromino, x, y)) {
+			return getActiveTetromino();
 		} else {
 			return getPlacedTetrominoAt(x, y);
 		}
@@ -113,7 +275,53 @@ public class Board {
 	 */
 	public void setActiveTetromino(ActiveTetromino tetromino) {
 		// Update the active tetromino
+		this.activeTetromino = PackedTetromino.pack(tetromino);
+		this.unpackedActiveTetromino = tetromino;
+	}
+
+	/**
+	 * Update the active tetromino for this board from its packed form (see
+	 * {@link PackedTetromino}).
+	 *
+	 * @param tetromino The packed tetromino, or <code>PackedTetromino.NONE</code>
+	 *                  to clear the active tetromino.
+	 */
+	public void setPackedActiveTetromino(long tetromino) {
 		this.activeTetromino = tetromino;
+		this.unpackedActiveTetromino = null;
+	}
+
+	/**
+	 * Move the active tetromino in place by a given amount in the x and/or y
+	 * direction. No check is made as to whether it can be placed in the new
+	 * position.
+	 *
+	 * @param dx The amount to move in the x direction.
+	 * @param dy The amount to move in the y direction.
+	 */
+	public void translateActiveTetromino(int dx, int dy) {
+		setPackedActiveTetromino(PackedTetromino.translate(activeTetromino, dx, dy));
+	}
+
+	/**
+	 * Rotate the active tetromino in place by a given number of steps. No check is
+	 * made as to whether it can be placed in the new orientation.
+	 *
+	 * @param steps Number of steps to rotate in clockwise direction, where
+	 *              negative values go in the anti-clockwise direction.
+	 */
+	public void rotateActiveTetromino(int steps) {
+		setPackedActiveTetromino(PackedTetromino.rotate(activeTetromino, steps));
+	}
+
+	/**
+	 * Mark the active tetromino as having landed.
+	 */
+	public void landActiveTetromino() {
+		activeTetromino = PackedTetromino.setLanded(activeTetromino, true);
+		if (unpackedActiveTetromino != null) {
+			unpackedActiveTetromino.setHasLanded(true);
+		}
 	}
 
 	/**
@@ -133,7 +341,7 @@ public class Board {
 			throw new IllegalArgumentException("Invalid row (" + y + ")");
 		}
 		// Not part of active tetromino, so try placed ones.
-		return cells[(y * width) + x];
+		return cells[y][x];
 	}
 
 	/**
@@ -152,7 +360,141 @@ public class Board {
 		if (y < 0 || y >= height) {
 			throw new IllegalArgumentException("Invalid row (" + y + ")");
 		}
-		cells[(y * width) + x] = t;
+		getWritableRow(y)[x] = t;
+		if (t == null) {
+			setRow(y, rows[y] & ~(1L << x));
+			if (heights[x] == y + 1) {
+				heights[x] = findColumnHeight(x, y);
+			}
+		} else {
+			setRow(y, rows[y] | (1L << x));
+			heights[x] = Math.max(heights[x], y + 1);
+		}
+	}
+
+	/**
+	 * Get the height of a given column of the board. That is, one more than the
+	 * row of the topmost placed tetromino in that column, or zero if the column is
+	 * empty.
+	 *
+	 * @param x The x-coordinate of the column to check
+	 * @return
+	 */
+	public int getColumnHeight(int x) {
+		if (x < 0 || x >= width) {
+			throw new IllegalArgumentException("Invalid column (" + x + ")");
+		}
+		return heights[x];
+	}
+
+	/**
+	 * Get the occupancy bitmask for a given row of the board. Bit
+	 * <code>x</code> of the result is set when the cell at <code>(x,y)</code>
+	 * contains a placed tetromino.
+	 *
+	 * @param y The y-coordinate of the row to get
+	 * @return
+	 */
+	public long getRowMask(int y) {
+		if (y < 0 || y >= height) {
+			throw new IllegalArgumentException("Invalid row (" + y + ")");
+		}
+		return rows[y];
+	}
+
+	/**
+	 * Determine the number of bytes needed to encode a board of a given size (see
+	 * {@link #write(ByteBuffer)}).
+	 *
+	 * @param width
+	 * @param height
+	 * @return
+	 */
+	public static int getEncodedSize(int width, int height) {
+		return 12 + (Long.BYTES * ((width * height + CELLS_PER_LONG - 1) / CELLS_PER_LONG));
+	}
+
+	/**
+	 * Encode this board into a given buffer, at its current position.
+	 *
+	 * @param buffer
+	 */
+	public void write(ByteBuffer buffer) {
+		buffer.putShort((short) width);
+		buffer.putShort((short) height);
+		buffer.putLong(getPackedActiveTetromino());
+		long word = 0;
+		int n = 0;
+		for (int y = 0; y != height; ++y) {
+			long mask = rows[y];
+			Tetromino[] row = cells[y];
+			for (int x = 0; x != width; ++x) {
+				if ((mask & (1L << x)) != 0) {
+					word |= (long) (row[x].getColor().ordinal() + 1) << (n * BITS_PER_CELL);
+				}
+				if (++n == CELLS_PER_LONG) {
+					buffer.putLong(word);
+					word = 0;
+					n = 0;
+				}
+			}
+		}
+		if (n != 0) {
+			buffer.putLong(word);
+		}
+	}
+
+	/**
+	 * Decode a board from a given buffer at its current position, overwriting
+	 * every cell and the active tetromino of this board. The encoded board must
+	 * have the same size as this board. Rows owned by this board are overwritten
+	 * in place, but a new row is allocated for any other row which holds a placed
+	 * tetromino. Hence, decoding into a freshly constructed board allocates one
+	 * row for every row which is not empty.
+	 *
+	 * @param buffer
+	 */
+	public void read(ByteBuffer buffer) {
+		int w = buffer.getShort();
+		int h = buffer.getShort();
+		if (w != width || h != height) {
+			throw new IllegalArgumentException("Invalid board size (" + w + "x" + h + ")");
+		}
+		setPackedActiveTetromino(buffer.getLong());
+		long word = 0;
+		int n = CELLS_PER_LONG;
+		for (int y = 0; y != height; ++y) {
+			// Reuse the row if it is owned, otherwise it is only copied if needed
+			Tetromino[] row = owned[y] ? cells[y] : null;
+			long mask = 0;
+			for (int x = 0; x != width; ++x) {
+				if (n == CELLS_PER_LONG) {
+					word = buffer.getLong();
+					n = 0;
+				}
+				int code = (int) (word >>> (n++ * BITS_PER_CELL)) & ((1 << BITS_PER_CELL) - 1);
+				if (code != 0) {
+					if (row == null) {
+						row = new Tetromino[width];
+					}
+					row[x] = DECODED_CELLS[code];
+					mask |= 1L << x;
+				} else if (row != null) {
+					row[x] = null;
+				}
+			}
+			if (mask == 0) {
+				cells[y] = emptyRow;
+				owned[y] = false;
+			} else {
+				cells[y] = row;
+				owned[y] = true;
+			}
+			setRow(y, mask);
+		}
+		for (int x = 0; x != width; ++x) {
+			heights[x] = findColumnHeight(x, height);
+		}
 	}
 
 	/**
@@ -166,19 +508,56 @@ public class Board {
 	 */
 	public boolean canPlaceTetromino(Tetromino t) {
 		Rectangle r = t.getBoundingBox();
-		//
-		for (int x = r.getMinX(); x <= r.getMaxX(); ++x) {
-			for (int y = r.getMinY(); y <= r.getMaxY(); ++y) {
-				int id = (y * width) + x;
-				if (t.isWithin(x, y) && (id < 0 || id >= cells.length || cells[id] != null)) {
-					return false;
-				}
+		return canPlace(t.getShape(), t.getOrientation(), r.getMinX(), r.getMinY(), r.getMaxX(), r.getMaxY());
+	}
+
+	/**
+	 * Check whether we can place a packed tetromino (see {@link PackedTetromino})
+	 * on the board. That is, whether or not it lies within the board and the cells
+	 * it occupies are currently free.
+	 *
+	 * @param t
+	 * @return
+	 */
+	public boolean canPlaceTetromino(long t) {
+		Shape shape = PackedTetromino.getShape(t);
+		Orientation orientation = PackedTetromino.getOrientation(t);
+		Rectangle r = shape.getBoundingBox(orientation);
+		int x = PackedTetromino.getX(t);
+		int y = PackedTetromino.getY(t);
+		return canPlace(shape, orientation, x + r.getMinX(), y + r.getMinY(), x + r.getMaxX(), y + r.getMaxY());
+	}
+
+
+	/**
+	 * Determine where a packed tetromino (see {@link PackedTetromino}) would come to
+	 * rest if dropped straight down from its current position. The tetromino is
+	 * assumed to be placeable at its current position. When it lies above the
+	 * height of every column it spans, this is determined in a single pass over
+	 * those columns. Otherwise, it is moved down one row at a time.
+	 *
+	 * @param t
+	 * @return The dropped tetromino, which is <code>t</code> itself if it cannot
+	 *         move down.
+	 */
+	public long dropTetromino(long t) {
+		Shape shape = PackedTetromino.getShape(t);
+		Orientation orientation = PackedTetromino.getOrientation(t);
+		Rectangle r = shape.getBoundingBox(orientation);
+		int x = PackedTetromino.getX(t) + r.getMinX();
+		int y = PackedTetromino.getY(t);
+		int landing = Integer.MIN_VALUE;
+		for (int i = 0; i <= r.getMaxX() - r.getMinX(); ++i) {
+			int bottom = shape.getColumnBottom(orientation, i);
+			if (x + i < 0 || x + i >= width || y + bottom < heights[x + i]) {
+				// Cannot use the column heights as part of the tetromino lies under them
+				return dropTetrominoSlowly(t);
 			}
+			landing = Math.max(landing, heights[x + i] - bottom);
 		}
-		return true;
+		return landing == y ? t : PackedTetromino.translate(t, 0, landing - y);
 	}
 
-
 	/**
 	 * Place a given Tetromino on the board by filling out each square it contains
 	 * on the board.
@@ -187,32 +566,50 @@ public class Board {
 	 */
 	public void placeTetromino(Tetromino t) {
 		Rectangle r = t.getBoundingBox();
-		//
-		for (int x = r.getMinX(); x <= r.getMaxX(); ++x) {
-			for (int y = r.getMinY(); y <= r.getMaxY(); ++y) {
-				if (t.isWithin(x, y)) {
-					cells[(y * width) + x] = t;
-				}
-			}
-		}
+		place(t, t.getShape(), t.getOrientation(), r.getMinX(), r.getMinY(), r.getMaxY());
+	}
+
+	/**
+	 * Place a given packed tetromino (see {@link PackedTetromino}) on the board by
+	 * filling out each square it contains on the board. Each square is filled with
+	 * the tetromino underlying the packed tetromino.
+	 *
+	 * @param t Packed tetromino to place; cannot be <code>NONE</code>
+	 */
+	public void placeTetromino(long t) {
+		Shape shape = PackedTetromino.getShape(t);
+		Orientation orientation = PackedTetromino.getOrientation(t);
+		Rectangle r = shape.getBoundingBox(orientation);
+		int x = PackedTetromino.getX(t);
+		int y = PackedTetromino.getY(t);
+		place(PackedTetromino.getTetromino(t), shape, orientation, x + r.getMinX(), y + r.getMinY(), y + r.getMaxY());
 	}
 
 	/**
 	 * Checks the board for full lines and if there are any present the line is cleared and the rest
-	 * of the board is moved down
+	 * of the board is moved down. This is done in a single pass from the bottom of the board, moving
+	 * each remaining row down past the full rows found beneath it.
+	 *
+	 * @return the number of lines which were cleared
 	 */
-	public void checkForFullLines(){
-		HashSet<Integer> rowsToClear = new HashSet<>();
+	public int checkForFullLines(){
+		int cleared = 0;
 		for(int y = 0;y<height;y++){
 			if(checkRow(y)){
-				rowsToClear.add(y);
+				cleared++;
+			} else if(cleared > 0){
+				moveRow(y, y - cleared);
 			}
 		}
-		if (rowsToClear.size()>0){
-			for(Integer i : rowsToClear){
-				clearRow(i);
+		if(cleared > 0){
+			clearRows(height - cleared, height);
+			// Every full row lay beneath the top of every column, so no column can
+			// have grown. It may have shrunk further if its top cell was cleared.
+			for(int x = 0;x<width;x++){
+				heights[x] = findColumnHeight(x, heights[x] - cleared);
 			}
 		}
+		return cleared;
 	}
 
 	/**
@@ -221,14 +618,7 @@ public class Board {
 	 * @return
 	 */
 	public boolean checkRow(Integer y){
-		boolean validmove = false;
-		for(int x = 0;x<getWidth();x++){
-			int id = (y * width) + x;
-			if(cells[id]==null){
-				return false;
-			}
-		}
-		return true;
+		return rows[y] == fullRow;
 	}
 
 	/**
@@ -236,26 +626,128 @@ public class Board {
 	 * @param y the row to be cleared
 	 */
 	public void clearRow(Integer y){
+		for(int newY = y;newY<height-1;newY++){
+			moveRow(newY + 1, newY);
+		}
+		clearRows(height - 1, height);
 		for(int x = 0;x<width;x++){
-			int id = (y * width) + x;
-			cells[id] = null;
+			heights[x] = findColumnHeight(x, height);
+		}
+	}
+
+	// ======================================================================
+	// Helper methods
+	// ======================================================================
+
+	/**
+	 * Check whether a shape with a given orientation and bounding box on the board
+	 * can be placed. That is, whether it lies within the board and does not
+	 * overlap any placed tetromino.
+	 */
+	private boolean canPlace(Shape shape, Orientation orientation, int minX, int minY, int maxX, int maxY) {
+		if (minX < 0 || maxX >= width || minY < 0 || maxY >= height) {
+			return false;
 		}
-		Tetromino[] cellsCopy = Arrays.copyOf(cells,cells.length);
-		for(int newY = y;newY<height-2;newY++){
-			for(int x = 0;x<=width;x++){
-				int oldId = (newY * width) + x;
-				int newId = ((newY+1)*width) + x;
-				cellsCopy[oldId] = cells[newId];
+		for (int y = minY; y <= maxY; ++y) {
+			long mask = shape.getRowMask(orientation, y - minY) << minX;
+			if ((rows[y] & mask) != 0) {
+				return false;
 			}
 		}
-		for(int i = 0;i<cells.length;i++){
-			cells[i] = cellsCopy[i];
+		return true;
+	}
+
+	/**
+	 * Determine where a packed tetromino would come to rest by moving it down one
+	 * row at a time.
+	 */
+	private long dropTetrominoSlowly(long t) {
+		long next = PackedTetromino.translate(t, 0, -1);
+		while (canPlaceTetromino(next)) {
+			t = next;
+			next = PackedTetromino.translate(t, 0, -1);
+		}
+		return t;
+	}
+
+	/**
+	 * Determine the height of a given column, considering only rows below a given
+	 * row.
+	 */
+	private int findColumnHeight(int x, int y) {
+		long bit = 1L << x;
+		while (y > 0 && (rows[y - 1] & bit) == 0) {
+			y = y - 1;
+		}
+		return y;
+	}
+
+	/**
+	 * Overwrite one row of the board with the contents of another.
+	 */
+	private void moveRow(int from, int to) {
+		cells[to] = cells[from];
+		owned[to] = owned[from];
+		setRow(to, rows[from]);
+	}
+
+	/**
+	 * Empty every row of the board from a given row (inclusive) up to another
+	 * (exclusive).
+	 */
+	private void clearRows(int from, int to) {
+		Arrays.fill(cells, from, to, emptyRow);
+		Arrays.fill(owned, from, to, false);
+		for (int y = from; y < to; ++y) {
+			setRow(y, 0);
+		}
+	}
+
+	/**
+	 * Update the cells occupied on a given row, along with the hash of the board.
+	 *
+	 * @param y
+	 * @param mask
+	 */
+	private void setRow(int y, long mask) {
+		hash ^= Zobrist.row(y, rows[y]) ^ Zobrist.row(y, mask);
+		rows[y] = mask;
+	}
+
+
+	/**
+	 * Get a given row of cells such that it can be modified. If the row is not
+	 * owned by this board, it is first copied.
+	 */
+	private Tetromino[] getWritableRow(int y) {
+		if (!owned[y]) {
+			cells[y] = cells[y].clone();
+			owned[y] = true;
+		}
+		return cells[y];
+	}
+
+	/**
+	 * Fill out the squares occupied by a shape with a given orientation and
+	 * bounding box on the board.
+	 */
+	private void place(Tetromino t, Shape shape, Orientation orientation, int minX, int minY, int maxY) {
+		for (int y = minY; y <= maxY; ++y) {
+			long mask = shape.getRowMask(orientation, y - minY) << minX;
+			setRow(y, rows[y] | mask);
+			Tetromino[] row = getWritableRow(y);
+			// Fill out each cell occupied on this row
+			for (; mask != 0; mask &= mask - 1) {
+				int x = Long.numberOfTrailingZeros(mask);
+				row[x] = t;
+				heights[x] = Math.max(heights[x], y + 1);
+			}
 		}
 	}
 
 	@Override
 	public String toString() {
-		StringBuffer res = new StringBuffer();
+		StringBuilder res = new StringBuilder((2 * width + 2) * height);
 		for (int y = height - 1; y >= 0; y -= 1) {
 			res.append("|");
 			for (int x = 0; x < width; x += 1) {
@@ -19,6 +19,28 @@ import swen221.tetris.tetromino.*;
  * @author Marco Servetto
  */
 public class Game {
+    /**
+     * Notified of every change made to a game through its API, for example to
+     * record the game as it is played.
+     */
+    public interface Listener {
+        /**
+         * Called after a valid move has been applied to the game. Moves which are
+         * not valid are ignored, hence are not notified.
+         *
+         * @param game The game to which the move was applied.
+         * @param move
+         */
+        public void applied(Game game, Move move);
+
+        /**
+         * Called after the game has been clocked.
+         *
+         * @param game The game which was clocked.
+         */
+        public void clocked(Game game);
+    }
+
     /**
      * An (infinite) sequence of tetrominos to be used to determine the next tetromino.
      */
@@ -45,14 +67,65 @@ public class Game {
      */
     private int score;
 
+    /**
+     * Records the number of tetrominos which have been made active. Since each is
+     * taken in turn from the sequence, the next tetromino is always the one at
+     * this position in the sequence.
+     */
+    private long tetrominoCount;
+
+    /**
+     * Records the rows of the board which have changed since they were last
+     * collected. This allows a user interface to redraw only those rows which
+     * need it, rather than the whole board on every cycle.
+     */
+    private final BitSet changedRows;
+
+    /**
+     * The score awarded for removing a given number of lines at once, indexed by
+     * the number of lines.
+     */
+    private static final int[] LINE_SCORES = {0, 100, 300, 500, 800};
+
     private boolean needToBeLocked = false;
 
+    /**
+     * Notified of every move and cycle, or <code>null</code> if there is none.
+     */
+    private Listener listener;
+
     public Game(Iterator<Tetromino> sequence, int width, int height) {
         this.tetrominoSequence = sequence;
         // Initial boards list with an empty board.
         this.board = new Board(sequence, width, height);
         // Initialise next tetromino
         this.nextTetromino = nextActiveTetromino();
+        // Initially, every row needs to be drawn
+        this.changedRows = new BitSet(height);
+        this.changedRows.set(0, height);
+    }
+
+    /**
+     * Construct a game which resumes from a given state, for example one saved
+     * earlier. The next tetromino is taken from the sequence as usual, hence the
+     * sequence must be positioned such that the next tetromino it issues is the
+     * one at position <code>tetrominoCount</code> (counting from zero).
+     *
+     * @param sequence       The remainder of the sequence of tetrominos.
+     * @param board          The board, which is then owned by this game.
+     * @param lines          The number of lines which have been removed.
+     * @param score          The current score.
+     * @param tetrominoCount The number of tetrominos which have been made active.
+     */
+    public Game(Iterator<Tetromino> sequence, Board board, int lines, int score, long tetrominoCount) {
+        this.tetrominoSequence = sequence;
+        this.board = board;
+        this.lines = lines;
+        this.score = score;
+        this.tetrominoCount = tetrominoCount;
+        this.nextTetromino = nextActiveTetromino();
+        this.changedRows = new BitSet(board.getHeight());
+        this.changedRows.set(0, board.getHeight());
     }
 
     /**
@@ -82,6 +155,17 @@ public class Game {
         return board;
     }
 
+    /**
+     * Get the number of tetrominos which have been made active so far. This is
+     * also the position of the next tetromino in the sequence, counting from
+     * zero.
+     *
+     * @return
+     */
+    public long getTetrominoCount() {
+        return tetrominoCount;
+    }
+
     /**
      * Get the next tetromino which will be issued.
      *
@@ -91,6 +175,54 @@ public class Game {
         return nextTetromino.getUnderlyingTetromino();
     }
 
+    /**
+     * Collect the rows of the board which have changed since this was last
+     * called, by adding them to a given set. Only changes made through this game
+     * are recorded (i.e. not those made directly on the active board).
+     *
+     * @param rows The set to which the changed rows are added, indexed by their
+     *             y-coordinate.
+     */
+    public void collectChangedRows(BitSet rows) {
+        rows.or(changedRows);
+        changedRows.clear();
+    }
+
+    /**
+     * Take an immutable snapshot of this game, such that it can be drawn by
+     * another thread without locking. Rows which have not changed since a given
+     * previous snapshot are shared with it, and the changed rows are then
+     * considered collected (see {@link #collectChangedRows(BitSet)}).
+     *
+     * @param previous The last snapshot taken of this game, or <code>null</code>
+     *                 if there is none.
+     * @return
+     */
+    public Snapshot snapshot(Snapshot previous) {
+        int width = board.getWidth();
+        int height = board.getHeight();
+        if (previous == null || previous.getWidth() != width || previous.getHeight() != height) {
+            changedRows.set(0, height);
+        }
+        byte[][] rows = new byte[height][];
+        for (int y = 0; y != height; ++y) {
+            rows[y] = changedRows.get(y) ? Snapshot.encodeRow(board, y) : previous.getRow(y);
+        }
+        changedRows.clear();
+        return new Snapshot(width, rows, board.getPackedActiveTetromino(), getNextTetromino(), lines, score,
+                tetrominoCount, isGameOver());
+    }
+
+    /**
+     * Set the listener to be notified of every valid move applied to this game,
+     * and every cycle clocked.
+     *
+     * @param listener The listener, or <code>null</code> for none.
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
     /**
      * Check whether the game is over. This happens when we can no longer place the
      * next tetromino.
@@ -112,6 +244,8 @@ public class Game {
         this.score = 0;
         // reset the board
         this.board = new Board(tetrominoSequence, board.getWidth(), board.getHeight());
+        // every row may have changed
+        changedRows.set(0, board.getHeight());
     }
 
     /**
@@ -124,7 +258,12 @@ public class Game {
         // Check whether the move was valid as, if not, then it's ignored.
         if (move.isValid(board)) {
             // Yes, move is valid therefore apply it for real.
+            markChangedRows(board.getPackedActiveTetromino());
             board = move.apply(board);
+            markChangedRows(board.getPackedActiveTetromino());
+            if (listener != null) {
+                listener.applied(this, move);
+            }
             //
             return true;
         } else {
@@ -139,60 +278,96 @@ public class Game {
      * landed, then we will remove full rows, etc.
      */
     public void clock() {
-        //
-        ActiveTetromino activeTetromino = board.getActiveTetromino();
+        // NOTE: the active tetromino is manipulated in packed form here, since this
+        // is called on every tick and should not allocate.
+        long activeTetromino = board.getPackedActiveTetromino();
         // Check whether it has landed
-        if (activeTetromino != null && !activeTetromino.getHasLanded()) {
+        if (activeTetromino != PackedTetromino.NONE && !PackedTetromino.isLanded(activeTetromino)) {
             // Gravity Movement
-            hasLanded(activeTetromino);
-            if (!activeTetromino.getHasLanded()) {
-                activeTetromino = activeTetromino.translate(0, -1);
-            } else{
-                if (board.getActiveTetromino() != null) {
-                    lockTetromino(board.getActiveTetromino());
-                    activeTetromino = null;
-                    board.checkForFullLines();
+            markChangedRows(activeTetromino);
+            if (!hasLanded(activeTetromino)) {
+                board.translateActiveTetromino(0, -1);
+                markChangedRows(board.getPackedActiveTetromino());
+            } else {
+                board.landActiveTetromino();
+                board.placeTetromino(activeTetromino);
+                board.setPackedActiveTetromino(PackedTetromino.NONE);
+                if (removeFullLines() > 0) {
+                    // Every row from the lowest removed upwards has moved. Since
+                    // only rows spanned by the tetromino can have been removed,
+                    // those beneath it are unchanged.
+                    changedRows.set(getBottom(activeTetromino), board.getHeight());
                 }
             }
         } else if (board.canPlaceTetromino(nextTetromino)) {
-            //Locks current tetromino
-            if(board.canPlaceTetromino(nextTetromino)) {
-                // promote next tetromino to be active
-                activeTetromino = nextTetromino;
-                // select the next one in sequence
-                if (tetrominoSequence.hasNext()) {
-                    nextTetromino = nextActiveTetromino();
-                }
+            // promote next tetromino to be active
+            board.setActiveTetromino(nextTetromino);
+            markChangedRows(board.getPackedActiveTetromino());
+            tetrominoCount++;
+            // select the next one in sequence
+            if (tetrominoSequence.hasNext()) {
+                nextTetromino = nextActiveTetromino();
             }
-        } else {
-
         }
-        board.setActiveTetromino(activeTetromino);
+        if (listener != null) {
+            listener.clocked(this);
+        }
     }
 
-
     // ======================================================================
     // Helper methods
     // ======================================================================
 
     /**
-     * Checks if the specified tetromino has landed
+     * Checks if the specified tetromino has landed. That is, whether it has either
+     * reached the bottom of the board, or encountered a tetromino below its current
+     * position.
      *
-     * @param tetromino the tetromino to check
+     * @param tetromino the packed tetromino to check
      */
-    private void hasLanded(ActiveTetromino tetromino) {
-        Rectangle boundingBox = tetromino.getBoundingBox();
-        if (isWithinBoard(tetromino)) {
-            if (checkIfAtBottom(tetromino, board)) {
-                // Case 2: reached the bottom of the board
-                board.getActiveTetromino().setHasLanded(true);
-            } else if (checkForTetrominosBelow(tetromino, board)) {
-                // Case 1: encountered tetromino below current position
-                board.getActiveTetromino().setHasLanded(true);
+    private boolean hasLanded(long tetromino) {
+        return !board.canPlaceTetromino(PackedTetromino.translate(tetromino, 0, -1));
+    }
+
+    /**
+     * Remove any full lines from the board, and update the line count and score
+     * accordingly.
+     */
+    private int removeFullLines() {
+        int n = board.checkForFullLines();
+        lines += n;
+        score += LINE_SCORES[Math.min(n, LINE_SCORES.length - 1)];
+        return n;
+    }
+
+    /**
+     * Record that the rows spanned by a given tetromino have changed.
+     *
+     * @param tetromino the packed tetromino, which may be <code>NONE</code>.
+     */
+    private void markChangedRows(long tetromino) {
+        if (tetromino != PackedTetromino.NONE) {
+            Rectangle box = PackedTetromino.getShape(tetromino)
+                    .getBoundingBox(PackedTetromino.getOrientation(tetromino));
+            int from = getBottom(tetromino);
+            int to = Math.min(board.getHeight(), PackedTetromino.getY(tetromino) + box.getMaxY() + 1);
+            if (from < to) {
+                changedRows.set(from, to);
             }
         }
     }
 
+    /**
+     * Determine the lowest row on the board spanned by a given tetromino.
+     *
+     * @param tetromino the packed tetromino
+     */
+    private int getBottom(long tetromino) {
+        Rectangle box = PackedTetromino.getShape(tetromino)
+                .getBoundingBox(PackedTetromino.getOrientation(tetromino));
+        return Math.max(0, PackedTetromino.getY(tetromino) + box.getMinY());
+    }
+
     /**
      * Determine the next active tetromino for the board.
      *
@@ -206,23 +381,6 @@ public class Game {
         return new ActiveTetromino(cx, cy, tetrominoSequence.next());
     }
 
-    /**
-     * Checks if the specified tetromino is within the board
-     *
-     * @param tetromino the tetromino to check
-     * @return
-     */
-    private boolean isWithinBoard(ActiveTetromino tetromino) {
-        Rectangle boundingBox = tetromino.getBoundingBox();
-        if (boundingBox.getMinX() >= 0 && boundingBox.getMinY() >= 0) {
-            if (boundingBox.getMaxX() <= board.getWidth() && boundingBox.getMaxY() <= board.getHeight()) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-
     public void lockTetromino(ActiveTetromino tetromino) {
         Rectangle boundingBox = tetromino.getBoundingBox();
         tetromino.setHasLanded(true);
@@ -234,34 +392,4 @@ public class Game {
             }
         }
     }
-
-    public static boolean checkForTetrominosBelow(ActiveTetromino tetromino, Board board) {
-        Board tempBoard = new Board(board);
-        ActiveTetromino movedTetromino = board.getActiveTetromino().translate(0, -1);
-        tempBoard.setActiveTetromino(movedTetromino);
-        Rectangle boundingBox = movedTetromino.getBoundingBox();
-        for (int y = boundingBox.getMinY(); y <= boundingBox.getMaxY(); y++) {
-            for (int x = boundingBox.getMinX(); x <= boundingBox.getMaxX(); x++) {
-                if (board.getTetrominoAt(x, y) != board.getActiveTetromino() && board.getTetrominoAt(x, y) != null) {
-                    if (movedTetromino.isWithin(x, y)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
-    }
-
-    public static boolean checkIfAtBottom(ActiveTetromino tetromino, Board board) {
-        Board tempBoard = new Board(board);
-        ActiveTetromino movedTetromino = tempBoard.getActiveTetromino().translate(0, -1);
-        tempBoard.setActiveTetromino(movedTetromino);
-        Rectangle boundingBox = movedTetromino.getBoundingBox();
-        if (boundingBox.getMinY() < 0) {
-            return true;
-        }
-        return false;
-    }
-
-
 }
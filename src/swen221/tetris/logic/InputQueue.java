@@ -0,0 +1,148 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.logic;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import swen221.tetris.moves.Move;
+
+/**
+ * A bounded queue of moves made by the user, which are waiting to be applied to
+ * a game. Moves are added by one thread (e.g. the thread handling key presses)
+ * and removed by another (i.e. the thread running the game), such that the game
+ * itself is only ever touched by the latter. The queue does not lock, and adding
+ * or removing a move does not allocate.
+ * <p>
+ * The moves are held in a ring buffer. The position of the next move to remove
+ * is written only by the consuming thread, whilst the position of the next move
+ * to add is written only by the producing thread. Each publishes its position
+ * after updating the buffer, hence a move is always written before it can be
+ * seen by the consumer, and a slot is always cleared before it can be reused by
+ * the producer. The consumer can also wait for a move to be added, rather than
+ * polling (see {@link #await(long)}).
+ * </p>
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public final class InputQueue {
+	private final Move[] buffer;
+
+	private final int mask;
+
+	/**
+	 * The position of the next move to be removed.
+	 */
+	private final AtomicLong head = new AtomicLong();
+
+	/**
+	 * The position of the next move to be added.
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * The consuming thread, whilst it is waiting for a move to be added.
+	 */
+	private volatile Thread consumer;
+
+	/**
+	 * Construct a queue with room for a given number of moves, which must be a
+	 * power of two.
+	 *
+	 * @param capacity
+	 */
+	public InputQueue(int capacity) {
+		if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Invalid capacity (" + capacity + ")");
+		}
+		this.buffer = new Move[capacity];
+		this.mask = capacity - 1;
+	}
+
+	/**
+	 * Add a move to the end of this queue. This must only be called by the
+	 * producing thread.
+	 *
+	 * @param move
+	 * @return <code>false</code> if the queue was full, in which case the move is
+	 *         dropped.
+	 */
+	public boolean offer(Move move) {
+		long t = tail.get();
+		if (t - head.getAcquire() == buffer.length) {
+			return false;
+		}
+		buffer[(int) t & mask] = move;
+		// NOTE: this must not be reordered with the read of the consumer below, since
+		// the consumer might otherwise miss the move and wait regardless.
+		tail.set(t + 1);
+		Thread waiting = consumer;
+		if (waiting != null) {
+			LockSupport.unpark(waiting);
+		}
+		return true;
+	}
+
+	/**
+	 * Remove the move at the front of this queue. This must only be called by the
+	 * consuming thread.
+	 *
+	 * @return The move, or <code>null</code> if the queue is empty.
+	 */
+	public Move poll() {
+		long h = head.get();
+		if (h == tail.getAcquire()) {
+			return null;
+		}
+		int i = (int) h & mask;
+		Move move = buffer[i];
+		buffer[i] = null;
+		head.setRelease(h + 1);
+		return move;
+	}
+
+	/**
+	 * Check whether there are any moves waiting in this queue.
+	 *
+	 * @return
+	 */
+	public boolean isEmpty() {
+		return head.getAcquire() == tail.getAcquire();
+	}
+
+	/**
+	 * Wait until either a move is added to this queue, or a given amount of time
+	 * has passed. This returns immediately if the queue is not empty, and may
+	 * also return early for no reason. This must only be called by the consuming
+	 * thread.
+	 *
+	 * @param nanos The maximum time to wait in nanoseconds.
+	 */
+	public void await(long nanos) {
+		consumer = Thread.currentThread();
+		if (head.get() == tail.get()) {
+			LockSupport.parkNanos(this, nanos);
+		}
+		consumer = null;
+	}
+
+	/**
+	 * Apply the moves waiting in this queue to a given game, in the order they
+	 * were added. Moves which are not valid are ignored as usual (see
+	 * {@link Game#apply(Move)}). At most one queue's worth of moves are applied,
+	 * such that a fast producer cannot stall the game. This must only be called
+	 * by the consuming thread.
+	 *
+	 * @param game
+	 * @return The number of moves removed from the queue.
+	 */
+	public int drainTo(Game game) {
+		int n = 0;
+		for (Move move; n != buffer.length && (move = poll()) != null; ++n) {
+			game.apply(move);
+		}
+		return n;
+	}
+}
@@ -0,0 +1,168 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.logic;
+
+import swen221.tetris.tetromino.PackedTetromino;
+import swen221.tetris.tetromino.Tetromino;
+import swen221.tetris.tetromino.Tetromino.Color;
+
+/**
+ * An immutable picture of a game at some moment, holding everything needed to
+ * draw it: the colour of every cell (including those of the active tetromino),
+ * the active and next tetrominos, and the score. Since a snapshot never changes
+ * once taken, it can be handed from the thread running the game to the thread
+ * drawing it without locking (see {@link Game#snapshot(Snapshot)}).
+ * <p>
+ * Each row is held as an array of colour codes, where zero is empty. Rows which
+ * have not changed since the previous snapshot are shared with it, hence taking
+ * a snapshot only copies the rows which have changed. Likewise, a row which
+ * differs between two snapshots can be identified without comparing its cells
+ * (see {@link #isRowSharedWith(Snapshot, int)}).
+ * </p>
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public final class Snapshot {
+	private static final Color[] COLORS = Color.values();
+
+	private final int width;
+	private final byte[][] rows;
+	private final long activeTetromino;
+	private final Tetromino nextTetromino;
+	private final int lines;
+	private final int score;
+	private final long tetrominoCount;
+	private final boolean gameOver;
+
+	Snapshot(int width, byte[][] rows, long activeTetromino, Tetromino nextTetromino, int lines, int score,
+			long tetrominoCount, boolean gameOver) {
+		this.width = width;
+		this.rows = rows;
+		this.activeTetromino = activeTetromino;
+		this.nextTetromino = nextTetromino;
+		this.lines = lines;
+		this.score = score;
+		this.tetrominoCount = tetrominoCount;
+		this.gameOver = gameOver;
+	}
+
+	/**
+	 * Get the width of the board.
+	 *
+	 * @return
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Get the height of the board.
+	 *
+	 * @return
+	 */
+	public int getHeight() {
+		return rows.length;
+	}
+
+	/**
+	 * Get the colour of a given cell, which may be occupied by either a placed
+	 * tetromino or the active tetromino.
+	 *
+	 * @param x
+	 * @param y
+	 * @return The colour of the cell, or <code>null</code> if it is empty.
+	 */
+	public Color getColorAt(int x, int y) {
+		int code = rows[y][x];
+		return code == 0 ? null : COLORS[code - 1];
+	}
+
+	/**
+	 * Check whether a given row is known to be unchanged from another snapshot,
+	 * because it is shared with it. Rows which are not shared may or may not
+	 * differ.
+	 *
+	 * @param other
+	 * @param y
+	 * @return
+	 */
+	public boolean isRowSharedWith(Snapshot other, int y) {
+		return other != null && y < other.rows.length && rows[y] == other.rows[y];
+	}
+
+	/**
+	 * Get the active tetromino in packed form (see {@link PackedTetromino}).
+	 *
+	 * @return The packed tetromino, or <code>PackedTetromino.NONE</code>.
+	 */
+	public long getPackedActiveTetromino() {
+		return activeTetromino;
+	}
+
+	/**
+	 * Get the next tetromino which will be issued.
+	 *
+	 * @return
+	 */
+	public Tetromino getNextTetromino() {
+		return nextTetromino;
+	}
+
+	/**
+	 * Get number of lines removed
+	 *
+	 * @return
+	 */
+	public int getLines() {
+		return lines;
+	}
+
+	/**
+	 * Get the current score.
+	 *
+	 * @return
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * Get the number of tetrominos which had been made active.
+	 *
+	 * @return
+	 */
+	public long getTetrominoCount() {
+		return tetrominoCount;
+	}
+
+	/**
+	 * Check whether the game was over.
+	 *
+	 * @return
+	 */
+	public boolean isGameOver() {
+		return gameOver;
+	}
+
+	byte[] getRow(int y) {
+		return rows[y];
+	}
+
+	/**
+	 * Determine the colour codes for a given row of a board.
+	 *
+	 * @param board
+	 * @param y
+	 * @return
+	 */
+	static byte[] encodeRow(Board board, int y) {
+		byte[] row = new byte[board.getWidth()];
+		for (int x = 0; x != row.length; ++x) {
+			Tetromino t = board.getTetrominoAt(x, y);
+			row[x] = (byte) (t == null ? 0 : t.getColor().ordinal() + 1);
+		}
+		return row;
+	}
+}
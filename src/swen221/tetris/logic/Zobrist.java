@@ -0,0 +1,67 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.logic;
+
+import swen221.tetris.tetromino.PackedTetromino;
+
+/**
+ * Computes the keys used to hash board positions. The hash of a board is the
+ * exclusive-or of a key for each of its rows, where the key depends on both
+ * the row's position and the cells occupied on it. Hence, when a row changes,
+ * the hash is updated by removing the key for its old contents and adding the
+ * key for its new contents. This is the usual Zobrist scheme, except that keys
+ * are given to whole rows rather than individual cells. Since rows are moved
+ * wholesale when lines are cleared, this means the hash is updated once per
+ * row moved rather than once per cell.
+ * <p>
+ * Keys are determined by mixing the bits of their inputs, rather than being
+ * drawn at random, hence the same board always has the same hash.
+ * </p>
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public final class Zobrist {
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	private Zobrist() {
+	}
+
+	/**
+	 * Get the key of a given row, where bit <code>x</code> of the mask is set when
+	 * cell <code>(x,y)</code> is occupied. The key of an empty row is always zero,
+	 * such that the hash of an empty board is zero.
+	 *
+	 * @param y    The row.
+	 * @param mask The cells occupied on the row.
+	 * @return
+	 */
+	public static long row(int y, long mask) {
+		return mask == 0 ? 0 : mix(mask ^ mix((y + 1) * GOLDEN_GAMMA));
+	}
+
+	/**
+	 * Get the key of an active tetromino in packed form (see
+	 * {@link PackedTetromino}), which is zero if there is no active tetromino.
+	 *
+	 * @param t
+	 * @return
+	 */
+	public static long tetromino(long t) {
+		return t == PackedTetromino.NONE ? 0 : mix(t + GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Mix the bits of a given value, such that every bit of the result depends on
+	 * every bit of the value. This is the finaliser used by SplitMix64.
+	 *
+	 * @param z
+	 * @return
+	 */
+	public static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -4,9 +4,8 @@
 package swen221.tetris.moves;
 
 import swen221.tetris.logic.Board;
-import swen221.tetris.logic.Rectangle;
 import swen221.tetris.tetromino.ActiveTetromino;
-import swen221.tetris.tetromino.Tetromino;
+import swen221.tetris.tetromino.PackedTetromino;
 
 /**
  * Provides some mechanisms which are common across all moves.
@@ -19,38 +18,35 @@ public abstract class AbstractMove implements Move {
 
 	@Override
 	public boolean isValid(Board board) {
-		if(board.getActiveTetromino().getHasLanded()){
+		long tetromino = board.getPackedActiveTetromino();
+		if (tetromino == PackedTetromino.NONE || PackedTetromino.isLanded(tetromino)) {
 			return false;
 		}
-		Board tempBoard = step(board);
-		Rectangle boundingBox = tempBoard.getActiveTetromino().getBoundingBox();
-		ActiveTetromino activeTetromino = tempBoard.getActiveTetromino();
-		if(boundingBox.getMinX()>=0&&boundingBox.getMaxX()<board.getWidth()){
-			if(boundingBox.getMinY()>=0&&boundingBox.getMaxY()<board.getHeight()) {
-				for(int y = boundingBox.getMinY();y<= boundingBox.getMaxY();y++){
-					for(int x = boundingBox.getMinX();x<=boundingBox.getMaxX();x++){
-						if( board.getTetrominoAt(x,y) != board.getActiveTetromino() && board.getTetrominoAt(x,y)!=null){
-							if(activeTetromino.isWithin(x,y)) {
-								return false;
-							}
-						}
-					}
-				}
-				return true;
-			} else{
-				return false;
-			}
+		// NOTE: check the candidate position directly against the placed
+		// tetrominos, rather than constructing an updated board.
+		return board.canPlaceTetromino(step(board, tetromino));
+	}
+
+	@Override
+	public ActiveTetromino getCandidate(Board board) {
+		long tetromino = board.getPackedActiveTetromino();
+		if (tetromino == PackedTetromino.NONE) {
+			return null;
 		}
-		return false;
+		return PackedTetromino.unpack(step(board, tetromino));
 	}
 
 	/**
-	 * Apply a single step of this move to a given board, producing an updated
-	 * board. This allows us to easily check every intermediate step for a
-	 * multi-part move is valid.
+	 * Apply a single step of this move to the active tetromino of a given board,
+	 * producing its updated position. This allows us to easily check every
+	 * intermediate step for a multi-part move is valid. The board itself is not
+	 * modified.
 	 *
-	 * @param board
+	 * @param board     Board on which the tetromino is being moved.
+	 * @param tetromino The active tetromino in packed form (see
+	 *                  {@link PackedTetromino}).
+	 * @return The updated tetromino in packed form.
 	 */
-	protected abstract Board step(Board board);
+	protected abstract long step(Board board, long tetromino);
 
 }
@@ -4,9 +4,7 @@
 package swen221.tetris.moves;
 
 import swen221.tetris.logic.Board;
-import swen221.tetris.logic.Rectangle;
-import swen221.tetris.tetromino.ActiveTetromino;
-import swen221.tetris.tetromino.Tetromino;
+import swen221.tetris.tetromino.PackedTetromino;
 
 /**
  * Implements a translation move.
@@ -43,27 +41,19 @@ public abstract class AbstractTranslation extends AbstractMove implements Move {
 	public Board apply(Board board) {
 		// Create copy of the board to prevent modifying its previous state.
 		board = new Board(board);
-		// Apply translation for this move
- 		ActiveTetromino tetromino = board.getActiveTetromino().translate(dx, dy);
-		// Apply the move to the new board.
-		board.setActiveTetromino(tetromino);
+		// Apply translation for this move to the new board.
+		board.translateActiveTetromino(dx, dy);
 		// Return updated version of board
 		return board;
 	}
 
 	@Override
-	public Board step(Board board) {
-		// Create copy of the board to prevent modifying its previous state.
-		board = new Board(board);
+	protected long step(Board board, long tetromino) {
 		// Determine units of translation
 		int x = toUnit(dx);
 		int y = toUnit(dy);
 		// Apply translation for this move
-		ActiveTetromino tetromino = board.getActiveTetromino().translate(x, y);
-		// Apply the move to the new board.
-		board.setActiveTetromino(tetromino);
-		// Return updated version of board
-		return board;
+		return PackedTetromino.translate(tetromino, x, y);
 	}
 
 	private int toUnit(int value) {
@@ -4,8 +4,7 @@
 package swen221.tetris.moves;
 
 import swen221.tetris.logic.Board;
-import swen221.tetris.tetromino.ActiveTetromino;
-import swen221.tetris.tetromino.Tetromino;
+import swen221.tetris.tetromino.PackedTetromino;
 
 /**
  * Implements a rotation move which is either clockwise or anti-clockwise.
@@ -20,19 +19,14 @@ public class ClockwiseRotation extends AbstractMove implements Move {
 	public Board apply(Board board) {
 		// Create copy of the board to prevent modifying its previous state.
 		Board tempBoard = new Board(board);
-		// Create a copy of this board which will be updated.
-		ActiveTetromino tetromino = tempBoard.getActiveTetromino().rotate(1);
 		// Apply the move to the new board, rather than to this board.
-		tempBoard.setActiveTetromino(tetromino);
+		tempBoard.rotateActiveTetromino(1);
 		// Return updated version of this board.
 		return tempBoard;
 	}
 
 	@Override
-	public Board step(Board board) {
-		board = new Board(board);
-		ActiveTetromino tetromino = board.getActiveTetromino().rotate(1);
-		board.setActiveTetromino(tetromino);
-		return board;
+	protected long step(Board board, long tetromino) {
+		return PackedTetromino.rotate(tetromino, 1);
 	}
 }
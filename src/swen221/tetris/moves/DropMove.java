@@ -4,11 +4,7 @@
 package swen221.tetris.moves;
 
 import swen221.tetris.logic.Board;
-import swen221.tetris.logic.Game;
-import swen221.tetris.logic.Rectangle;
-import swen221.tetris.tetromino.ActiveTetromino;
-import swen221.tetris.tetromino.O_Tetromino;
-import swen221.tetris.tetromino.Tetromino;
+import swen221.tetris.tetromino.PackedTetromino;
 
 /**
  * Implements a "hard drop". That is, when the tetromino is immediately dropped
@@ -25,30 +21,25 @@ public class DropMove extends AbstractMove {
 	}
 
 	@Override
-	protected Board step(Board board) {
-		return null;
+	protected long step(Board board, long tetromino) {
+		// Move down until we hit the bottom, or another tetromino
+		return board.dropTetromino(tetromino);
 	}
 
 	@Override
 	public Board apply(Board board) {
-		boolean otherTetrominoFound = false;
 		// Create copy of the board to prevent modifying its previous state.
 		board = new Board(board);
-		// Create a copy of this board which will be updated.
-		ActiveTetromino tetromino = board.getActiveTetromino();
-		Rectangle boundingBox = tetromino.getBoundingBox();
-		board.setActiveTetromino(tetromino);
-		while (!Game.checkIfAtBottom(tetromino,board)){
-			if(!Game.checkForTetrominosBelow(tetromino,board)) {
-				tetromino = board.getActiveTetromino().translate(0, -1);
-				board.setActiveTetromino(tetromino);
-			} else if(Game.checkForTetrominosBelow(tetromino,board)){
-				break;
+		long tetromino = board.getPackedActiveTetromino();
+		if (tetromino != PackedTetromino.NONE) {
+			long dropped = step(board, tetromino);
+			// NOTE: only update the board if the tetromino actually moved.
+			if (dropped != tetromino) {
+				board.setPackedActiveTetromino(dropped);
 			}
 		}
 		// Return updated version of this board.
 		return board;
-
 	}
 
 	@Override
@@ -4,6 +4,7 @@
 package swen221.tetris.moves;
 
 import swen221.tetris.logic.Board;
+import swen221.tetris.tetromino.ActiveTetromino;
 
 /**
  * A move is any move which is permitted by the player during a game. This
@@ -33,4 +34,17 @@ public interface Move {
 	 */
 	public Board apply(Board board);
 
+	/**
+	 * Determine the active tetromino which would result from playing this move,
+	 * without updating or copying the board. This is useful for checking where a
+	 * move would take the active tetromino. No check is made as to whether the
+	 * move is valid.
+	 *
+	 * @param board
+	 *            Board on which Tetromino is being moved.
+	 * @return The updated active tetromino, or <code>null</code> if there is no
+	 *         active tetromino.
+	 */
+	public ActiveTetromino getCandidate(Board board);
+
 }
@@ -0,0 +1,94 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.replay;
+
+import java.nio.ByteBuffer;
+
+import swen221.tetris.logic.Board;
+import swen221.tetris.logic.Game;
+import swen221.tetris.tetromino.BagSequence;
+
+/**
+ * Encodes the complete state of a game at some cycle, such that the game can
+ * be resumed from that cycle without playing it from the start. Checkpoints
+ * are embedded periodically in recordings (see {@link Replay}), and are
+ * encoded as follows:
+ *
+ * <pre>
+ * | tick (8) | lines (4) | score (4) | tetrominos (8) | board |
+ * </pre>
+ *
+ * Here, <code>tetrominos</code> is the number of tetrominos made active, which
+ * determines the next tetromino from the game's sequence, and
+ * <code>board</code> is the game's board in its packed binary form (see
+ * {@link Board#write(ByteBuffer)}).
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public final class Checkpoint {
+	private Checkpoint() {
+	}
+
+	/**
+	 * Determine the number of bytes needed to encode a checkpoint of a game with
+	 * a given board size.
+	 *
+	 * @param width
+	 * @param height
+	 * @return
+	 */
+	public static int size(int width, int height) {
+		return 24 + Board.getEncodedSize(width, height);
+	}
+
+	/**
+	 * Encode the state of a game into a given buffer, at its current position.
+	 *
+	 * @param game
+	 * @param tick   The number of cycles for which the game has been clocked.
+	 * @param buffer
+	 */
+	public static void write(Game game, long tick, ByteBuffer buffer) {
+		Board board = game.getActiveBoard();
+		buffer.putLong(tick);
+		buffer.putInt(game.getLines());
+		buffer.putInt(game.getScore());
+		buffer.putLong(game.getTetrominoCount());
+		board.write(buffer);
+	}
+
+	/**
+	 * Get the cycle at which a checkpoint was taken, without decoding it.
+	 *
+	 * @param buffer
+	 * @param offset The offset of the checkpoint in the buffer.
+	 * @return
+	 */
+	public static long getTick(ByteBuffer buffer, int offset) {
+		return buffer.getLong(offset);
+	}
+
+	/**
+	 * Decode a checkpoint from a given buffer at its current position, and resume
+	 * the game it encodes.
+	 *
+	 * @param buffer
+	 * @param seed   The seed of the game's sequence of tetrominos.
+	 * @param width  The width of the game's board.
+	 * @param height The height of the game's board.
+	 * @return
+	 */
+	public static Game read(ByteBuffer buffer, long seed, int width, int height) {
+		buffer.getLong();
+		int lines = buffer.getInt();
+		int score = buffer.getInt();
+		long tetrominos = buffer.getLong();
+		Board board = new Board(null, width, height);
+		board.read(buffer);
+		BagSequence sequence = new BagSequence(seed);
+		sequence.skip(tetrominos);
+		return new Game(sequence, board, lines, score, tetrominos);
+	}
+}
@@ -0,0 +1,104 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.replay;
+
+import swen221.tetris.moves.*;
+
+/**
+ * Describes the binary format of a recorded game. A recording begins with a
+ * header giving the board dimensions and the seed of the game's
+ * {@link swen221.tetris.tetromino.BagSequence}, as follows:
+ *
+ * <pre>
+ * | magic (4) | version (2) | width (2) | height (2) | seed (8) |
+ * </pre>
+ *
+ * This is followed by the events of the game, in the order they happened. Each
+ * event is either a valid move or a cycle of the clock, and runs of the same
+ * event are encoded together as a single byte: the event in the top three bits,
+ * and the length of the run less one in the bottom five bits. Hence, a
+ * tetromino falling for twenty cycles costs one byte. The recording ends with
+ * an <code>END</code> event. All values are big-endian.
+ * <p>
+ * Optionally, a {@link Checkpoint} of the game is embedded every so many
+ * cycles, immediately after the cycle in question. This is encoded as a
+ * <code>CHECKPOINT</code> event followed by the checkpoint itself, and allows
+ * a recording to be played from any cycle without playing it from the start
+ * (see {@link SeekableReplay}).
+ * </p>
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public final class Replay {
+	/**
+	 * Identifies the start of a recording.
+	 */
+	public static final int MAGIC = 0x54455452;
+
+	/**
+	 * The version of the format described here.
+	 */
+	public static final int VERSION = 2;
+
+	/**
+	 * The number of bytes in the header of a recording.
+	 */
+	public static final int HEADER_SIZE = 18;
+
+	public static final int MOVE_LEFT = 0;
+	public static final int MOVE_RIGHT = 1;
+	public static final int MOVE_DOWN = 2;
+	public static final int ROTATE = 3;
+	public static final int DROP = 4;
+	public static final int CLOCK = 5;
+	public static final int CHECKPOINT = 6;
+	public static final int END = 7;
+
+	/**
+	 * The maximum length of a run of events encoded as a single byte.
+	 */
+	public static final int MAX_RUN = 32;
+
+	/**
+	 * The moves corresponding to each event, indexed by event.
+	 */
+	private static final Move[] MOVES = { new MoveLeft(), new MoveRight(), new MoveDown(), new ClockwiseRotation(),
+			new DropMove() };
+
+	private Replay() {
+	}
+
+	/**
+	 * Determine the event which records a given move.
+	 *
+	 * @param move
+	 * @return
+	 */
+	public static int toEvent(Move move) {
+		if (move instanceof MoveLeft) {
+			return MOVE_LEFT;
+		} else if (move instanceof MoveRight) {
+			return MOVE_RIGHT;
+		} else if (move instanceof MoveDown) {
+			return MOVE_DOWN;
+		} else if (move instanceof ClockwiseRotation) {
+			return ROTATE;
+		} else if (move instanceof DropMove) {
+			return DROP;
+		} else {
+			throw new IllegalArgumentException("Move cannot be recorded (" + move + ")");
+		}
+	}
+
+	/**
+	 * Determine the move recorded by a given event.
+	 *
+	 * @param event
+	 * @return The move, or <code>null</code> if the event is not a move.
+	 */
+	public static Move toMove(int event) {
+		return event >= 0 && event < MOVES.length ? MOVES[event] : null;
+	}
+}
@@ -0,0 +1,242 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Provides access to a large file of recorded games, written one after another
+ * (see {@link ReplayRecorder}). The file is memory-mapped rather than read,
+ * hence recordings are decoded directly from the operating system's page cache
+ * without being copied. The file is scanned once when opened to find where
+ * each recording starts, after which the recordings can be accessed in any
+ * order, from any number of threads. For example, the following counts the
+ * lines cleared across every game, in parallel:
+ *
+ * <pre>
+ * try (ReplayCorpus corpus = ReplayCorpus.open(path)) {
+ * 	long lines = corpus.games().parallel().mapToLong(r -&gt; {
+ * 		Game game = r.newGame();
+ * 		r.play(game);
+ * 		return game.getLines();
+ * 	}).sum();
+ * }
+ * </pre>
+ *
+ * Since a single mapping is limited to 2GB, the file is mapped in windows of at
+ * most 1GB each. Every recording lies entirely within one window, hence no
+ * recording can be larger than a window.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public class ReplayCorpus implements Closeable {
+	/**
+	 * The maximum size of each window onto the file in bytes.
+	 */
+	public static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+	private final FileChannel channel;
+
+	/**
+	 * The windows onto the file, in order.
+	 */
+	private final MappedByteBuffer[] windows;
+
+	/**
+	 * The window holding each recording.
+	 */
+	private final int[] recordingWindows;
+
+	/**
+	 * The offset of each recording within its window.
+	 */
+	private final int[] recordingOffsets;
+
+	/**
+	 * The length of each recording in bytes.
+	 */
+	private final int[] recordingLengths;
+
+	private ReplayCorpus(FileChannel channel, MappedByteBuffer[] windows, int[] recordingWindows,
+			int[] recordingOffsets, int[] recordingLengths) {
+		this.channel = channel;
+		this.windows = windows;
+		this.recordingWindows = recordingWindows;
+		this.recordingOffsets = recordingOffsets;
+		this.recordingLengths = recordingLengths;
+	}
+
+	/**
+	 * Open a file of recorded games, and find each recording within it.
+	 *
+	 * @param path
+	 * @return
+	 * @throws IOException If the file cannot be read, or is not a sequence of
+	 *                     complete recordings.
+	 */
+	public static ReplayCorpus open(Path path) throws IOException {
+		return open(path, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * Open a file of recorded games using windows of a given size, and find each
+	 * recording within it.
+	 *
+	 * @param path
+	 * @param windowSize The maximum size of each window in bytes.
+	 * @return
+	 * @throws IOException If the file cannot be read, or is not a sequence of
+	 *                     complete recordings each of which fits in a window.
+	 */
+	public static ReplayCorpus open(Path path, int windowSize) throws IOException {
+		if (windowSize < Replay.HEADER_SIZE) {
+			throw new IllegalArgumentException("Invalid window size (" + windowSize + ")");
+		}
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			List<MappedByteBuffer> windows = new ArrayList<>();
+			int[] ws = new int[16];
+			int[] offsets = new int[16];
+			int[] lengths = new int[16];
+			int n = 0;
+			long start = 0;
+			long position = 0;
+			MappedByteBuffer window = null;
+			while (position < size) {
+				if (window == null) {
+					start = position;
+					window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, size - start));
+					windows.add(window);
+				}
+				int offset = (int) (position - start);
+				int length = measure(window, offset, position);
+				if (length > 0) {
+					if (n == offsets.length) {
+						ws = Arrays.copyOf(ws, n * 2);
+						offsets = Arrays.copyOf(offsets, n * 2);
+						lengths = Arrays.copyOf(lengths, n * 2);
+					}
+					ws[n] = windows.size() - 1;
+					offsets[n] = offset;
+					lengths[n] = length;
+					n++;
+					position += length;
+				} else if (offset == 0 || start + window.capacity() == size) {
+					throw new IOException("Invalid or incomplete recording at offset " + position);
+				} else {
+					// Recording continues beyond this window, so start the next one here
+					window = null;
+				}
+			}
+			return new ReplayCorpus(channel, windows.toArray(new MappedByteBuffer[windows.size()]),
+					Arrays.copyOf(ws, n), Arrays.copyOf(offsets, n), Arrays.copyOf(lengths, n));
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Get the number of recordings.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return recordingLengths.length;
+	}
+
+	/**
+	 * Get a given recording, as a buffer which views it in place. The buffer is
+	 * positioned at the start of the recording, and its limit is the end.
+	 *
+	 * @param i
+	 * @return
+	 */
+	public ByteBuffer get(int i) {
+		return windows[recordingWindows[i]].slice(recordingOffsets[i], recordingLengths[i]).asReadOnlyBuffer();
+	}
+
+	/**
+	 * Get a reader for a given recording, which has already read its header.
+	 *
+	 * @param i
+	 * @return
+	 */
+	public ReplayReader getReader(int i) {
+		return new ReplayReader(get(i));
+	}
+
+	/**
+	 * Get every recording, in order. The stream splits evenly when processed in
+	 * parallel, and each recording is only viewed once it is reached.
+	 *
+	 * @return
+	 */
+	public Stream<ByteBuffer> recordings() {
+		return IntStream.range(0, size()).mapToObj(this::get);
+	}
+
+	/**
+	 * Get a reader for every recording, in order. The stream splits evenly when
+	 * processed in parallel.
+	 *
+	 * @return
+	 */
+	public Stream<ReplayReader> games() {
+		return IntStream.range(0, size()).mapToObj(this::getReader);
+	}
+
+	/**
+	 * Close the file. The windows onto it are unmapped once they are no longer
+	 * used, hence recordings must not be accessed after this.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Determine the length of the recording at a given offset of a window,
+	 * without decoding its events.
+	 *
+	 * @param window
+	 * @param offset
+	 * @param position The position of the offset in the file, for reporting
+	 *                 errors.
+	 * @return The length in bytes, or zero if the recording does not end within
+	 *         the window.
+	 * @throws IOException If the window does not hold a recording at the offset.
+	 */
+	private static int measure(ByteBuffer window, int offset, long position) throws IOException {
+		int limit = window.capacity();
+		if (limit - offset < Replay.HEADER_SIZE) {
+			return 0;
+		} else if (window.getInt(offset) != Replay.MAGIC || window.getShort(offset + 4) != Replay.VERSION) {
+			throw new IOException("Invalid recording at offset " + position);
+		}
+		int checkpointSize = Checkpoint.size(window.getShort(offset + 6), window.getShort(offset + 8));
+		for (int i = offset + Replay.HEADER_SIZE; i < limit; ++i) {
+			int event = (window.get(i) & 0xFF) >>> 5;
+			if (event == Replay.END) {
+				return i + 1 - offset;
+			} else if (event == Replay.CHECKPOINT) {
+				i += checkpointSize;
+			}
+		}
+		return 0;
+	}
+}
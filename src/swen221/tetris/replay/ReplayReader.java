@@ -0,0 +1,202 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.replay;
+
+import java.nio.ByteBuffer;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import swen221.tetris.logic.Game;
+import swen221.tetris.moves.Move;
+import swen221.tetris.tetromino.BagSequence;
+
+/**
+ * Reads a recorded game (see {@link Replay}) from a buffer, one event at a
+ * time. Any checkpoints in the recording are skipped. The buffer is read in
+ * place from its current position, which is left just after the end of the
+ * recording once it has been read. Hence, several recordings held one after
+ * another in the same buffer can be read in turn.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public class ReplayReader {
+	private final ByteBuffer buffer;
+
+	private final int width;
+
+	private final int height;
+
+	private final long seed;
+
+	/**
+	 * The event in the current run.
+	 */
+	private int event;
+
+	/**
+	 * The number of events remaining in the current run.
+	 */
+	private int remaining;
+
+	/**
+	 * Construct a reader for the recording starting at the current position of a
+	 * given buffer, and read its header.
+	 *
+	 * @param buffer
+	 */
+	public ReplayReader(ByteBuffer buffer) {
+		this.buffer = buffer;
+		if (buffer.remaining() < Replay.HEADER_SIZE || buffer.getInt() != Replay.MAGIC) {
+			throw new IllegalArgumentException("Not a recorded game");
+		}
+		int version = buffer.getShort();
+		if (version != Replay.VERSION) {
+			throw new IllegalArgumentException("Unsupported version (" + version + ")");
+		}
+		this.width = buffer.getShort();
+		this.height = buffer.getShort();
+		this.seed = buffer.getLong();
+	}
+
+	/**
+	 * Construct a reader for the events of a recording starting at the current
+	 * position of a given buffer, whose header has already been read.
+	 *
+	 * @param buffer
+	 * @param width  The width of the board.
+	 * @param height The height of the board.
+	 * @param seed   The seed of the game's sequence of tetrominos.
+	 */
+	public ReplayReader(ByteBuffer buffer, int width, int height, long seed) {
+		this.buffer = buffer;
+		this.width = width;
+		this.height = height;
+		this.seed = seed;
+	}
+
+	/**
+	 * Get the width of the board.
+	 *
+	 * @return
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Get the height of the board.
+	 *
+	 * @return
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Get the seed of the game's sequence of tetrominos.
+	 *
+	 * @return
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Construct the game as it was before any events were recorded.
+	 *
+	 * @return
+	 */
+	public Game newGame() {
+		return new Game(new BagSequence(seed), width, height);
+	}
+
+	/**
+	 * Read the next event of the recording.
+	 *
+	 * @return The event, which is <code>Replay.END</code> once the end of the
+	 *         recording has been reached.
+	 */
+	public int next() {
+		if (remaining == 0) {
+			if (event == Replay.END) {
+				return Replay.END;
+			}
+			int b = buffer.get() & 0xFF;
+			while ((b >>> 5) == Replay.CHECKPOINT) {
+				buffer.position(buffer.position() + Checkpoint.size(width, height));
+				b = buffer.get() & 0xFF;
+			}
+			event = b >>> 5;
+			remaining = (b & (Replay.MAX_RUN - 1)) + 1;
+			if (event == Replay.END) {
+				remaining = 0;
+				return Replay.END;
+			}
+		}
+		remaining--;
+		return event;
+	}
+
+	/**
+	 * Get the remaining events of the recording as a stream, which ends before
+	 * the <code>END</code> event. This allows a recording to be analysed without
+	 * playing it on a game, as events are decoded only as the stream is consumed.
+	 *
+	 * @return
+	 */
+	public IntStream events() {
+		Spliterator.OfInt events = new Spliterators.AbstractIntSpliterator(Long.MAX_VALUE,
+				Spliterator.ORDERED | Spliterator.NONNULL) {
+			@Override
+			public boolean tryAdvance(IntConsumer action) {
+				int e = next();
+				if (e == Replay.END) {
+					return false;
+				}
+				action.accept(e);
+				return true;
+			}
+		};
+		return StreamSupport.intStream(events, false);
+	}
+
+	/**
+	 * Apply a given event to a game.
+	 *
+	 * @param game
+	 * @param event
+	 */
+	public static void apply(Game game, int event) {
+		if (event == Replay.CLOCK) {
+			game.clock();
+		} else {
+			Move move = Replay.toMove(event);
+			if (move == null) {
+				throw new IllegalArgumentException("Invalid event (" + event + ")");
+			}
+			game.apply(move);
+		}
+	}
+
+	/**
+	 * Play the remainder of the recording on a given game.
+	 *
+	 * @param game
+	 * @return The number of cycles clocked.
+	 */
+	public long play(Game game) {
+		long ticks = 0;
+		for (int e = next(); e != Replay.END; e = next()) {
+			apply(game, e);
+			if (e == Replay.CLOCK) {
+				ticks++;
+			}
+		}
+		return ticks;
+	}
+}
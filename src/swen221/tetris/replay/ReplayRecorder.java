@@ -0,0 +1,227 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.replay;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import swen221.tetris.logic.Game;
+import swen221.tetris.moves.Move;
+
+/**
+ * Records a game as it is played, by listening to it (see
+ * {@link Game#setListener(Game.Listener)}), in the format described by
+ * {@link Replay}. Checkpoints of the game can optionally be embedded in the
+ * recording at a fixed interval. The recording is written to a channel, which
+ * is not closed when the recording is finished. Hence, several recordings can
+ * be written one after another to the same channel.
+ * <p>
+ * Events are encoded into one of two buffers. When that buffer is full it is
+ * written to the channel by a given executor, whilst events are encoded into
+ * the other. Hence, the game is held up only if a buffer fills before the
+ * other has been written.
+ * </p>
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public class ReplayRecorder implements Game.Listener {
+	/**
+	 * The default size of each buffer in bytes.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	/**
+	 * A suitable number of cycles between checkpoints, for recordings which are
+	 * to be seeked (see {@link SeekableReplay}). With this interval, seeking a
+	 * recording of a standard size board typically takes a few hundred
+	 * microseconds, whilst the checkpoints take up most of the recording.
+	 */
+	public static final int DEFAULT_CHECKPOINT_INTERVAL = 500;
+
+	private final WritableByteChannel channel;
+
+	private final Executor executor;
+
+	/**
+	 * The number of cycles between checkpoints, or zero for none.
+	 */
+	private final int checkpointInterval;
+
+	/**
+	 * The number of cycles recorded so far.
+	 */
+	private long ticks;
+
+	/**
+	 * The buffer into which events are currently being encoded.
+	 */
+	private ByteBuffer current;
+
+	/**
+	 * The buffer being written, or which was last written.
+	 */
+	private ByteBuffer spare;
+
+	/**
+	 * Completes when the spare buffer has been written.
+	 */
+	private CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+
+	/**
+	 * The event in the current run, or <code>-1</code> if there is none.
+	 */
+	private int event = -1;
+
+	/**
+	 * The number of events in the current run.
+	 */
+	private int run;
+
+	public ReplayRecorder(WritableByteChannel channel, Executor executor, long seed, int width, int height) {
+		this(channel, executor, seed, width, height, 0, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Construct a recorder for a game, and write the header of its recording.
+	 *
+	 * @param channel            The channel to which the recording is written.
+	 * @param executor           Used to write each buffer to the channel once
+	 *                           full.
+	 * @param seed               The seed of the game's sequence of tetrominos.
+	 * @param width              The width of the game's board.
+	 * @param height             The height of the game's board.
+	 * @param checkpointInterval The number of cycles between checkpoints, or zero
+	 *                           for none.
+	 * @param bufferSize         The size of each buffer in bytes, which must be
+	 *                           large enough to hold the header and any
+	 *                           checkpoint.
+	 */
+	public ReplayRecorder(WritableByteChannel channel, Executor executor, long seed, int width, int height,
+			int checkpointInterval, int bufferSize) {
+		if (checkpointInterval < 0) {
+			throw new IllegalArgumentException("Invalid checkpoint interval (" + checkpointInterval + ")");
+		} else if (bufferSize < Replay.HEADER_SIZE
+				|| (checkpointInterval > 0 && bufferSize <= Checkpoint.size(width, height))) {
+			throw new IllegalArgumentException("Invalid buffer size (" + bufferSize + ")");
+		}
+		this.channel = channel;
+		this.executor = executor;
+		this.checkpointInterval = checkpointInterval;
+		this.current = ByteBuffer.allocateDirect(bufferSize);
+		this.spare = ByteBuffer.allocateDirect(bufferSize);
+		current.putInt(Replay.MAGIC);
+		current.putShort((short) Replay.VERSION);
+		current.putShort((short) width);
+		current.putShort((short) height);
+		current.putLong(seed);
+	}
+
+	@Override
+	public void applied(Game game, Move move) {
+		record(Replay.toEvent(move));
+	}
+
+	@Override
+	public void clocked(Game game) {
+		record(Replay.CLOCK);
+		ticks++;
+		if (checkpointInterval > 0 && ticks % checkpointInterval == 0) {
+			endRun();
+			if (current.remaining() <= Checkpoint.size(game.getActiveBoard().getWidth(),
+					game.getActiveBoard().getHeight())) {
+				swap();
+			}
+			current.put((byte) (Replay.CHECKPOINT << 5));
+			Checkpoint.write(game, ticks, current);
+		}
+	}
+
+	/**
+	 * Finish the recording, and wait for it to be written to the channel.
+	 *
+	 * @throws IOException If writing any part of the recording failed.
+	 */
+	public void finish() throws IOException {
+		record(Replay.END);
+		endRun();
+		current.flip();
+		try {
+			await();
+			write(current);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Record a given event, which either extends the current run or starts a new
+	 * one.
+	 *
+	 * @param e
+	 */
+	private void record(int e) {
+		if (e != event || run == Replay.MAX_RUN) {
+			endRun();
+			event = e;
+		}
+		run++;
+	}
+
+	/**
+	 * Encode the current run (if any) into the current buffer.
+	 */
+	private void endRun() {
+		if (run > 0) {
+			if (!current.hasRemaining()) {
+				swap();
+			}
+			current.put((byte) ((event << 5) | (run - 1)));
+			run = 0;
+		}
+	}
+
+	/**
+	 * Start writing the current buffer, and begin encoding into the other. This
+	 * must wait for the other to have been written.
+	 */
+	private void swap() {
+		ByteBuffer full = current;
+		full.flip();
+		await();
+		current = spare;
+		current.clear();
+		spare = full;
+		pending = CompletableFuture.runAsync(() -> write(full), executor);
+	}
+
+	/**
+	 * Wait for the spare buffer to have been written.
+	 */
+	private void await() {
+		try {
+			pending.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof UncheckedIOException) {
+				throw (UncheckedIOException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	private void write(ByteBuffer buffer) {
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,148 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.replay;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import swen221.tetris.logic.Game;
+
+/**
+ * Allows a recorded game to be played from any cycle, rather than only from
+ * the start. The recording is scanned once to find its checkpoints (see
+ * {@link Checkpoint}). Then, the game at a given cycle is found by resuming it
+ * from the nearest checkpoint at or before that cycle, and playing only the
+ * events which follow. Hence, the cost of seeking depends on the interval
+ * between checkpoints, rather than the length of the game.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public class SeekableReplay {
+	private final ByteBuffer buffer;
+
+	private final int width;
+
+	private final int height;
+
+	private final long seed;
+
+	/**
+	 * The offset in the buffer of the first event.
+	 */
+	private final int start;
+
+	/**
+	 * The total number of cycles recorded.
+	 */
+	private final long ticks;
+
+	/**
+	 * The cycle of each checkpoint, in ascending order.
+	 */
+	private long[] checkpointTicks = new long[16];
+
+	/**
+	 * The offset in the buffer of each checkpoint.
+	 */
+	private int[] checkpointOffsets = new int[16];
+
+	private int checkpoints;
+
+	/**
+	 * Construct a seekable replay of the recording starting at the current
+	 * position of a given buffer. The recording is read in place, and the
+	 * position of the buffer is left just after its end.
+	 *
+	 * @param buffer
+	 */
+	public SeekableReplay(ByteBuffer buffer) {
+		ReplayReader header = new ReplayReader(buffer);
+		this.buffer = buffer.duplicate();
+		this.width = header.getWidth();
+		this.height = header.getHeight();
+		this.seed = header.getSeed();
+		this.start = buffer.position();
+		int checkpointSize = Checkpoint.size(width, height);
+		long ticks = 0;
+		for (int b = buffer.get() & 0xFF; (b >>> 5) != Replay.END; b = buffer.get() & 0xFF) {
+			int event = b >>> 5;
+			if (event == Replay.CLOCK) {
+				ticks += (b & (Replay.MAX_RUN - 1)) + 1;
+			} else if (event == Replay.CHECKPOINT) {
+				addCheckpoint(Checkpoint.getTick(buffer, buffer.position()), buffer.position());
+				buffer.position(buffer.position() + checkpointSize);
+			}
+		}
+		this.ticks = ticks;
+	}
+
+	/**
+	 * Get the total number of cycles recorded.
+	 *
+	 * @return
+	 */
+	public long getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * Get the number of checkpoints in the recording.
+	 *
+	 * @return
+	 */
+	public int getCheckpointCount() {
+		return checkpoints;
+	}
+
+	/**
+	 * Construct the game as it was immediately after a given cycle had been
+	 * clocked, where cycle zero gives the game before it was first clocked. This
+	 * can be called from several threads at once.
+	 *
+	 * @param tick
+	 * @return
+	 */
+	public Game seek(long tick) {
+		if (tick < 0 || tick > ticks) {
+			throw new IllegalArgumentException("Invalid tick (" + tick + ")");
+		}
+		ByteBuffer events = buffer.duplicate();
+		int i = Arrays.binarySearch(checkpointTicks, 0, checkpoints, tick);
+		if (i < 0) {
+			// Not found, so use the checkpoint before where it would be
+			i = -i - 2;
+		}
+		Game game;
+		long current;
+		if (i < 0) {
+			events.position(start);
+			game = new ReplayReader(events, width, height, seed).newGame();
+			current = 0;
+		} else {
+			events.position(checkpointOffsets[i]);
+			game = Checkpoint.read(events, seed, width, height);
+			current = checkpointTicks[i];
+		}
+		ReplayReader reader = new ReplayReader(events, width, height, seed);
+		while (current < tick) {
+			int event = reader.next();
+			ReplayReader.apply(game, event);
+			if (event == Replay.CLOCK) {
+				current++;
+			}
+		}
+		return game;
+	}
+
+	private void addCheckpoint(long tick, int offset) {
+		if (checkpoints == checkpointTicks.length) {
+			checkpointTicks = Arrays.copyOf(checkpointTicks, checkpoints * 2);
+			checkpointOffsets = Arrays.copyOf(checkpointOffsets, checkpoints * 2);
+		}
+		checkpointTicks[checkpoints] = tick;
+		checkpointOffsets[checkpoints] = offset;
+		checkpoints++;
+	}
+}
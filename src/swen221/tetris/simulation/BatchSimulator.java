@@ -0,0 +1,125 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.simulation;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Simulates a large number of independent games concurrently on a fork-join
+ * pool. Every game is confined to the task which plays it, having its own
+ * board, player and sequence of tetrominos. Likewise, each task accumulates its
+ * own statistics which are only combined once the task is complete. Since
+ * nothing mutable is shared between tasks, this scales with the number of
+ * threads in the pool.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public class BatchSimulator {
+	/**
+	 * The number of games below which a batch is played sequentially, rather
+	 * than being split further.
+	 */
+	private static final int THRESHOLD = 16;
+
+	/**
+	 * Used to play each individual game. Its supplier of players will be called
+	 * concurrently, and must construct a fresh player each time.
+	 */
+	private final Simulator simulator;
+
+	/**
+	 * The pool on which games are played.
+	 */
+	private final ForkJoinPool pool;
+
+	public BatchSimulator(Simulator simulator, ForkJoinPool pool) {
+		this.simulator = simulator;
+		this.pool = pool;
+	}
+
+	/**
+	 * Play a given number of games concurrently, where each game is played until
+	 * either it is over or a given number of cycles have been clocked. As for
+	 * {@link Simulator#run(long, long)}, the sequence of tetrominos for the
+	 * <code>i</code>th game is determined by the seed <code>seed+i</code>. Hence,
+	 * the results do not depend on the order in which games are played.
+	 *
+	 * @param seed  Seed used to determine the sequence of tetrominos for each game.
+	 * @param games The number of games to play.
+	 * @param ticks The maximum number of cycles to clock each game.
+	 * @return Statistics for all games, where the time recorded is the elapsed
+	 *         time rather than the total time spent by all threads.
+	 */
+	public Statistics run(long seed, int games, long ticks) {
+		return run(seed, games, ticks, null);
+	}
+
+	/**
+	 * Play a given number of games concurrently as above, saving each game
+	 * periodically into the slot of a given store matching its index. Any game
+	 * already saved in the store with the same seed is resumed from there (see
+	 * {@link Simulator#play(long, long, Statistics, GameStore, int)}). Hence, a
+	 * simulation which was stopped part way through can be completed by running
+	 * it again with the same store.
+	 *
+	 * @param seed  Seed used to determine the sequence of tetrominos for each game.
+	 * @param games The number of games to play.
+	 * @param ticks The maximum number of cycles to clock each game.
+	 * @param store The store into which games are saved, which must have at least
+	 *              as many slots as there are games, or <code>null</code> if they
+	 *              are not saved.
+	 * @return Statistics for all games, where the time recorded is the elapsed
+	 *         time rather than the total time spent by all threads.
+	 */
+	public Statistics run(long seed, int games, long ticks, GameStore store) {
+		if (store != null && store.getSlotCount() < games) {
+			throw new IllegalArgumentException("Not enough slots for " + games + " games");
+		}
+		long start = System.nanoTime();
+		Statistics stats = pool.invoke(new Batch(seed, 0, games, ticks, store));
+		stats.addTime(System.nanoTime() - start);
+		return stats;
+	}
+
+	/**
+	 * A contiguous range of games to be played.
+	 */
+	@SuppressWarnings("serial")
+	private class Batch extends RecursiveTask<Statistics> {
+		private final long seed;
+		private final int start;
+		private final int end;
+		private final long ticks;
+		private final GameStore store;
+
+		public Batch(long seed, int start, int end, long ticks, GameStore store) {
+			this.seed = seed;
+			this.start = start;
+			this.end = end;
+			this.ticks = ticks;
+			this.store = store;
+		}
+
+		@Override
+		protected Statistics compute() {
+			if (end - start <= THRESHOLD) {
+				Statistics stats = new Statistics();
+				for (int i = start; i != end; ++i) {
+					simulator.play(seed + i, ticks, stats, store, i);
+				}
+				return stats;
+			} else {
+				int middle = (start + end) >>> 1;
+				Batch left = new Batch(seed, start, middle, ticks, store);
+				Batch right = new Batch(seed, middle, end, ticks, store);
+				left.fork();
+				Statistics stats = right.compute();
+				stats.add(left.join());
+				return stats;
+			}
+		}
+	}
+}
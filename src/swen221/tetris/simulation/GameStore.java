@@ -0,0 +1,336 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.simulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import swen221.tetris.logic.Game;
+import swen221.tetris.replay.Checkpoint;
+
+/**
+ * Holds the state of a fixed number of games in a memory-mapped file, such
+ * that a long simulation can be resumed after it has been stopped or has
+ * crashed. Each game occupies its own slot, which is updated in place whenever
+ * the game is saved. The state saved is the seed of the game's
+ * {@link swen221.tetris.tetromino.BagSequence} along with a {@link Checkpoint}
+ * of the game, hence a game can be resumed without playing it from the start.
+ * <p>
+ * Each slot holds two copies of its game, and a save overwrites the older
+ * copy. Each copy has a generation number and a checksum, and the most recent
+ * copy with a valid checksum is the one resumed. Hence, a slot is never lost
+ * to a save which was interrupted part way through. Saved state survives the
+ * process crashing as soon as it is written, since the file is mapped. However,
+ * it only survives the machine crashing once it has been forced to disk, which
+ * happens after a given number of saves. More frequent forcing loses less
+ * progress in a crash, but slows the simulation.
+ * </p>
+ * <p>
+ * Different slots can be saved and resumed concurrently, though any one slot
+ * must only be used by one thread at a time.
+ * </p>
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public class GameStore implements Closeable {
+	/**
+	 * Identifies a file of saved games.
+	 */
+	public static final int MAGIC = 0x54455453;
+
+	/**
+	 * The version of the file format.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The number of bytes in the header of the file, which is laid out as
+	 * <code>| magic (4) | version (2) | width (2) | height (2) | slots (4) |</code>
+	 * and padded.
+	 */
+	private static final int HEADER_SIZE = 16;
+
+	/**
+	 * The number of bytes in each copy before its checkpoint, which is laid out
+	 * as <code>| generation (8) | checksum (4) | seed (8) |</code>. The checksum
+	 * covers everything after it.
+	 */
+	private static final int COPY_HEADER_SIZE = 20;
+
+	private final FileChannel channel;
+
+	private final MappedByteBuffer mapping;
+
+	private final int width;
+
+	private final int height;
+
+	/**
+	 * The number of bytes in each copy of a game.
+	 */
+	private final int copySize;
+
+	/**
+	 * The number of cycles between saves of each game.
+	 */
+	private final int saveInterval;
+
+	/**
+	 * The number of saves between forcing the file to disk, or zero to leave
+	 * this to the operating system.
+	 */
+	private final int forceInterval;
+
+	/**
+	 * The generation of the most recent valid copy in each slot, or zero if the
+	 * slot holds no game.
+	 */
+	private final long[] generations;
+
+	/**
+	 * The number of saves made.
+	 */
+	private final AtomicLong saves = new AtomicLong();
+
+	private GameStore(FileChannel channel, MappedByteBuffer mapping, int width, int height, int slots,
+			int saveInterval, int forceInterval) {
+		this.channel = channel;
+		this.mapping = mapping;
+		this.width = width;
+		this.height = height;
+		this.copySize = COPY_HEADER_SIZE + Checkpoint.size(width, height);
+		this.saveInterval = saveInterval;
+		this.forceInterval = forceInterval;
+		this.generations = new long[slots];
+		for (int i = 0; i != slots; ++i) {
+			int copy = findLatestCopy(i);
+			generations[i] = copy < 0 ? 0 : mapping.getLong(copy);
+		}
+	}
+
+	/**
+	 * Open a file of saved games, creating it if it does not exist. An existing
+	 * file must have been created for the same number of games and board size.
+	 *
+	 * @param path
+	 * @param slots         The number of games held.
+	 * @param width         The width of the board for each game.
+	 * @param height        The height of the board for each game.
+	 * @param saveInterval  The number of cycles between saves of each game.
+	 * @param forceInterval The number of saves between forcing the file to disk,
+	 *                      or zero to leave this to the operating system.
+	 * @return
+	 * @throws IOException If the file cannot be opened, or holds different games.
+	 */
+	public static GameStore open(Path path, int slots, int width, int height, int saveInterval, int forceInterval)
+			throws IOException {
+		if (slots < 1) {
+			throw new IllegalArgumentException("Invalid number of slots (" + slots + ")");
+		} else if (saveInterval < 1) {
+			throw new IllegalArgumentException("Invalid save interval (" + saveInterval + ")");
+		} else if (forceInterval < 0) {
+			throw new IllegalArgumentException("Invalid force interval (" + forceInterval + ")");
+		}
+		long size = HEADER_SIZE + (2L * slots * (COPY_HEADER_SIZE + Checkpoint.size(width, height)));
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Too many slots (" + slots + ")");
+		}
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE);
+		try {
+			boolean created = channel.size() == 0;
+			if (!created && channel.size() != size) {
+				throw new IOException("Saved games do not match (" + path + ")");
+			}
+			MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			if (created) {
+				mapping.putInt(0, MAGIC);
+				mapping.putShort(4, (short) VERSION);
+				mapping.putShort(6, (short) width);
+				mapping.putShort(8, (short) height);
+				mapping.putInt(10, slots);
+				mapping.force();
+			} else if (mapping.getInt(0) != MAGIC || mapping.getShort(4) != VERSION || mapping.getShort(6) != width
+					|| mapping.getShort(8) != height || mapping.getInt(10) != slots) {
+				throw new IOException("Saved games do not match (" + path + ")");
+			}
+			return new GameStore(channel, mapping, width, height, slots, saveInterval, forceInterval);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Get the number of games held.
+	 *
+	 * @return
+	 */
+	public int getSlotCount() {
+		return generations.length;
+	}
+
+	/**
+	 * Get the number of cycles between saves of each game.
+	 *
+	 * @return
+	 */
+	public int getSaveInterval() {
+		return saveInterval;
+	}
+
+	/**
+	 * Check whether a given slot holds a saved game.
+	 *
+	 * @param slot
+	 * @return
+	 */
+	public boolean isSaved(int slot) {
+		return generations[slot] != 0;
+	}
+
+	/**
+	 * Get the seed of the game saved in a given slot.
+	 *
+	 * @param slot
+	 * @return
+	 */
+	public long getSeed(int slot) {
+		return mapping.getLong(getLatestCopy(slot) + 12);
+	}
+
+	/**
+	 * Get the number of cycles for which the game saved in a given slot had been
+	 * clocked.
+	 *
+	 * @param slot
+	 * @return
+	 */
+	public long getTick(int slot) {
+		return Checkpoint.getTick(mapping, getLatestCopy(slot) + COPY_HEADER_SIZE);
+	}
+
+	/**
+	 * Resume the game saved in a given slot.
+	 *
+	 * @param slot
+	 * @return
+	 */
+	public Game load(int slot) {
+		int copy = getLatestCopy(slot);
+		ByteBuffer buffer = mapping.slice(copy, copySize);
+		buffer.position(COPY_HEADER_SIZE);
+		return Checkpoint.read(buffer, mapping.getLong(copy + 12), width, height);
+	}
+
+	/**
+	 * Save a game into a given slot, overwriting the older of its two copies.
+	 * The file is forced to disk if enough saves have been made since it last
+	 * was.
+	 *
+	 * @param slot
+	 * @param seed The seed of the game's sequence of tetrominos.
+	 * @param tick The number of cycles for which the game has been clocked.
+	 * @param game
+	 */
+	public void save(int slot, long seed, long tick, Game game) {
+		long generation = generations[slot] + 1;
+		ByteBuffer buffer = mapping.slice(getCopy(slot, generation), copySize);
+		// Invalidate this copy until it is complete
+		buffer.putLong(0, 0);
+		buffer.position(12);
+		buffer.putLong(seed);
+		Checkpoint.write(game, tick, buffer);
+		buffer.putInt(8, checksum(buffer));
+		buffer.putLong(0, generation);
+		generations[slot] = generation;
+		if (forceInterval > 0 && saves.incrementAndGet() % forceInterval == 0) {
+			mapping.force();
+		}
+	}
+
+	/**
+	 * Force every save to disk.
+	 */
+	public void force() {
+		mapping.force();
+	}
+
+	/**
+	 * Force every save to disk, and close the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		mapping.force();
+		channel.close();
+	}
+
+	/**
+	 * Get the offset of the most recent valid copy in a given slot.
+	 *
+	 * @param slot
+	 * @return
+	 */
+	private int getLatestCopy(int slot) {
+		if (!isSaved(slot)) {
+			throw new IllegalArgumentException("No saved game (" + slot + ")");
+		}
+		return getCopy(slot, generations[slot]);
+	}
+
+	/**
+	 * Get the offset of the copy in a given slot used for a given generation.
+	 * Generations alternate between the two copies.
+	 *
+	 * @param slot
+	 * @param generation
+	 * @return
+	 */
+	private int getCopy(int slot, long generation) {
+		return HEADER_SIZE + (((2 * slot) + (int) (generation & 1)) * copySize);
+	}
+
+	/**
+	 * Find the offset of the most recent valid copy in a given slot, by checking
+	 * both copies.
+	 *
+	 * @param slot
+	 * @return The offset, or <code>-1</code> if neither copy is valid.
+	 */
+	private int findLatestCopy(int slot) {
+		int latest = -1;
+		long latestGeneration = 0;
+		for (int i = 0; i != 2; ++i) {
+			int copy = HEADER_SIZE + (((2 * slot) + i) * copySize);
+			long generation = mapping.getLong(copy);
+			ByteBuffer buffer = mapping.slice(copy, copySize);
+			if (generation > latestGeneration && (generation & 1) == i
+					&& buffer.getInt(8) == checksum(buffer)) {
+				latest = copy;
+				latestGeneration = generation;
+			}
+		}
+		return latest;
+	}
+
+	/**
+	 * Compute the checksum of a given copy.
+	 *
+	 * @param copy
+	 * @return
+	 */
+	private int checksum(ByteBuffer copy) {
+		CRC32 crc = new CRC32();
+		crc.update(copy.slice(12, copySize - 12));
+		return (int) crc.getValue();
+	}
+}
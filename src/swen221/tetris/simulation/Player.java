@@ -0,0 +1,28 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.simulation;
+
+import swen221.tetris.logic.Game;
+import swen221.tetris.moves.Move;
+
+/**
+ * A player decides which moves to make during a game. This allows a game to be
+ * driven without a user, for example from a script or by a computer player.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public interface Player {
+	/**
+	 * Get the next move to make on a given game before it is next clocked. This
+	 * is called repeatedly on each cycle of the game until it returns
+	 * <code>null</code>.
+	 *
+	 * @param game
+	 *            The game being played.
+	 * @return The move to make, or <code>null</code> if there are no more moves
+	 *         to make on this cycle.
+	 */
+	public Move getMove(Game game);
+}
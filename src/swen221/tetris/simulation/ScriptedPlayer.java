@@ -0,0 +1,82 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.simulation;
+
+import swen221.tetris.logic.Game;
+import swen221.tetris.moves.*;
+
+/**
+ * A player which follows a fixed script, repeating it once the end is reached.
+ * Each character of the script denotes a move as follows:
+ *
+ * <ul>
+ * <li><code>L</code> moves left.</li>
+ * <li><code>R</code> moves right.</li>
+ * <li><code>D</code> moves down.</li>
+ * <li><code>C</code> rotates clockwise.</li>
+ * <li><code>X</code> drops the tetromino.</li>
+ * <li><code>.</code> ends the moves for this cycle.</li>
+ * </ul>
+ *
+ * For example, the script <code>"LLX..."</code> moves every tetromino twice to
+ * the left and drops it, then waits for it to be locked and the next to be
+ * issued.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public class ScriptedPlayer implements Player {
+	// NOTE: moves do not hold any state, hence can be reused.
+	private static final Move LEFT = new MoveLeft();
+	private static final Move RIGHT = new MoveRight();
+	private static final Move DOWN = new MoveDown();
+	private static final Move ROTATE = new ClockwiseRotation();
+	private static final Move DROP = new DropMove();
+
+	/**
+	 * The moves in the script, where <code>null</code> denotes the end of a cycle.
+	 */
+	private final Move[] script;
+
+	/**
+	 * Index of the next move in the script.
+	 */
+	private int index;
+
+	public ScriptedPlayer(String script) {
+		if (script.isEmpty()) {
+			throw new IllegalArgumentException("empty script");
+		}
+		this.script = new Move[script.length()];
+		for (int i = 0; i != script.length(); ++i) {
+			this.script[i] = toMove(script.charAt(i));
+		}
+	}
+
+	@Override
+	public Move getMove(Game game) {
+		Move move = script[index];
+		index = (index + 1) % script.length;
+		return move;
+	}
+
+	private static Move toMove(char c) {
+		switch (c) {
+		case 'L':
+			return LEFT;
+		case 'R':
+			return RIGHT;
+		case 'D':
+			return DOWN;
+		case 'C':
+			return ROTATE;
+		case 'X':
+			return DROP;
+		case '.':
+			return null;
+		default:
+			throw new IllegalArgumentException("invalid move '" + c + "'");
+		}
+	}
+}
@@ -0,0 +1,308 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.simulation;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+import swen221.tetris.ai.AutoPlayer;
+import swen221.tetris.ai.BeamSearchPlayer;
+import swen221.tetris.ai.Evaluator;
+import swen221.tetris.logic.Board;
+import swen221.tetris.logic.Game;
+import swen221.tetris.moves.Move;
+import swen221.tetris.tetromino.BagSequence;
+import swen221.tetris.tetromino.PackedTetromino;
+import swen221.tetris.tetromino.Shape;
+import swen221.tetris.tetromino.Tetromino.Color;
+import swen221.tetris.tetromino.Tetromino.Orientation;
+
+/**
+ * Simulates games of Tetris without a user interface, as quickly as possible.
+ * A simulator holds no state of its own between games, hence can be used to play
+ * games on several threads at once (see {@link BatchSimulator}).
+ * Each game is driven by a player, and clocked after the player has made its
+ * moves for that cycle. Games are played one after another until a budget of
+ * cycles is used up. This is useful for evaluating computer players and for
+ * regression testing.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public class Simulator {
+	/**
+	 * The maximum number of moves a player can make on any one cycle. This
+	 * prevents a player from stalling the simulation.
+	 */
+	public static final int MAX_MOVES_PER_TICK = 100;
+
+	/**
+	 * The width of the board for each game.
+	 */
+	private final int width;
+
+	/**
+	 * The height of the board for each game.
+	 */
+	private final int height;
+
+	/**
+	 * Constructs a fresh player for each game, given the seed which determines the
+	 * sequence of tetrominos for that game.
+	 */
+	private final LongFunction<? extends Player> players;
+
+	public Simulator(int width, int height, Supplier<? extends Player> players) {
+		this(width, height, seed -> players.get());
+	}
+
+	/**
+	 * Construct a simulator where each player is told the seed which determines
+	 * the sequence of tetrominos for its game. This allows a player to look
+	 * further ahead than the next tetromino.
+	 *
+	 * @param width   The width of the board for each game.
+	 * @param height  The height of the board for each game.
+	 * @param players Constructs a fresh player for each game, given its seed.
+	 * @throws IllegalArgumentException If no tetromino can be issued onto an
+	 *                                  empty board of the given size, such that
+	 *                                  every game would be over before it began.
+	 */
+	public Simulator(int width, int height, LongFunction<? extends Player> players) {
+		if (!canSpawn(width, height)) {
+			throw new IllegalArgumentException("Board too small to play (" + width + "x" + height + ")");
+		}
+		this.width = width;
+		this.height = height;
+		this.players = players;
+	}
+
+	/**
+	 * Simulate games one after another until a given number of cycles have been
+	 * clocked in total. The sequence of tetrominos for the <code>i</code>th game is
+	 * a {@link BagSequence} determined by the seed <code>seed+i</code>. Hence, the
+	 * results depend only on the given seed.
+	 *
+	 * @param seed  Seed used to determine the sequence of tetrominos for each game.
+	 * @param ticks The total number of cycles to clock.
+	 * @return
+	 */
+	public Statistics run(long seed, long ticks) {
+		Statistics stats = new Statistics();
+		long start = System.nanoTime();
+		for (long i = 0; stats.getTicks() < ticks; ++i) {
+			play(seed + i, ticks - stats.getTicks(), stats);
+		}
+		stats.addTime(System.nanoTime() - start);
+		return stats;
+	}
+
+	/**
+	 * Play a single game until either it is over, or a given number of cycles
+	 * have been clocked.
+	 *
+	 * @param seed  Seed used to determine the sequence of tetrominos.
+	 * @param ticks The maximum number of cycles to clock.
+	 * @param stats Statistics to which the game is added.
+	 */
+	public void play(long seed, long ticks, Statistics stats) {
+		play(seed, ticks, stats, null, 0);
+	}
+
+	/**
+	 * Play a single game until either it is over, or a given number of cycles
+	 * have been clocked, saving it periodically into a given slot of a store. If
+	 * that slot already holds a game with the same seed, then the game is resumed
+	 * from there rather than played from the start. A resumed game is given a
+	 * fresh player, hence it plays on exactly as it would have done only if the
+	 * player's moves depend on the game alone (e.g. the computer players). Moves
+	 * made before the game was resumed are not included in the statistics.
+	 *
+	 * @param seed  Seed used to determine the sequence of tetrominos.
+	 * @param ticks The maximum number of cycles to clock.
+	 * @param stats Statistics to which the game is added.
+	 * @param store The store into which the game is saved, or <code>null</code>
+	 *              if it is not saved.
+	 * @param slot  The slot of the store which holds the game.
+	 */
+	public void play(long seed, long ticks, Statistics stats, GameStore store, int slot) {
+		Game game;
+		long tick;
+		if (store != null && store.isSaved(slot) && store.getSeed(slot) == seed) {
+			game = store.load(slot);
+			tick = store.getTick(slot);
+		} else {
+			game = new Game(new BagSequence(seed), width, height);
+			tick = 0;
+		}
+		Player player = players.apply(seed);
+		long moves = 0;
+		while (tick < ticks && !game.isGameOver()) {
+			for (int i = 0; i != MAX_MOVES_PER_TICK; ++i) {
+				Move move = player.getMove(game);
+				if (move == null) {
+					break;
+				} else if (game.apply(move)) {
+					moves++;
+				}
+			}
+			game.clock();
+			tick++;
+			if (store != null && tick % store.getSaveInterval() == 0) {
+				store.save(slot, seed, tick, game);
+			}
+		}
+		if (store != null && tick % store.getSaveInterval() != 0) {
+			store.save(slot, seed, tick, game);
+		}
+		stats.addGame(tick, moves, game.getLines(), game.getScore());
+	}
+
+	/**
+	 * Run a simulation from the command line. Options are given as name and value
+	 * pairs, for example <code>-width 10 -height 20 -seed 1 -ticks 1000000 -script
+	 * "LLX."</code>. See {@link ScriptedPlayer} for the format of scripts.
+	 * Alternatively, the computer player can be used with a given time budget per
+	 * move in milliseconds (e.g. <code>-auto 10</code>), or the beam search player
+	 * with a given beam width (e.g. <code>-beam 32</code>). If a number of games
+	 * is given (e.g. <code>-games 10000</code>), then that many games are played
+	 * concurrently using {@link BatchSimulator}, each for at most the given number
+	 * of ticks. Such games can also be saved periodically to a file (e.g.
+	 * <code>-store games.bin -save 1000 -force 100</code>), such that if the
+	 * simulation is run again with the same options then it resumes each game
+	 * from where it was last saved. Here, games are saved every
+	 * <code>-save</code> ticks, and the file is forced to disk every
+	 * <code>-force</code> saves (see {@link GameStore}).
+	 *
+	 * @param args
+	 * @throws IOException If the file of saved games cannot be opened.
+	 */
+	public static void main(String[] args) throws IOException {
+		int width = 10;
+		int height = 20;
+		long seed = System.currentTimeMillis();
+		long ticks = 10_000_000;
+		String script = "X.";
+		long budget = -1;
+		int beam = 0;
+		int games = 0;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String store = null;
+		int save = 1000;
+		int force = 0;
+		for (int i = 0; i < args.length; i += 2) {
+			if (i + 1 == args.length) {
+				usage("missing value for " + args[i]);
+			}
+			String value = args[i + 1];
+			switch (args[i]) {
+			case "-width":
+				width = Integer.parseInt(value);
+				break;
+			case "-height":
+				height = Integer.parseInt(value);
+				break;
+			case "-seed":
+				seed = Long.parseLong(value);
+				break;
+			case "-ticks":
+				ticks = Long.parseLong(value);
+				break;
+			case "-script":
+				script = value;
+				break;
+			case "-auto":
+				budget = Long.parseLong(value);
+				break;
+			case "-beam":
+				beam = Integer.parseInt(value);
+				break;
+			case "-games":
+				games = Integer.parseInt(value);
+				break;
+			case "-threads":
+				threads = Integer.parseInt(value);
+				break;
+			case "-store":
+				store = value;
+				break;
+			case "-save":
+				save = Integer.parseInt(value);
+				break;
+			case "-force":
+				force = Integer.parseInt(value);
+				break;
+			default:
+				usage("unknown option " + args[i]);
+			}
+		}
+		final String moves = script;
+		final long nanos = budget >= 0 ? budget * 1_000_000 : AutoPlayer.DEFAULT_BUDGET;
+		if (!canSpawn(width, height)) {
+			usage("board too small to play (" + width + "x" + height + ")");
+		}
+		if (beam > BeamSearchPlayer.MAX_WIDTH) {
+			usage("beam width must be at most " + BeamSearchPlayer.MAX_WIDTH);
+		}
+		Simulator simulator;
+		final int beamWidth = beam;
+		if (beam > 0) {
+			simulator = new Simulator(width, height, s -> new BeamSearchPlayer(new BagSequence(s), beamWidth,
+					BeamSearchPlayer.DEFAULT_DEPTH, Evaluator.DEFAULT, nanos, ForkJoinPool.commonPool()));
+		} else if (budget >= 0) {
+			simulator = new Simulator(width, height, () -> new AutoPlayer(Evaluator.DEFAULT, nanos));
+		} else {
+			simulator = new Simulator(width, height, () -> new ScriptedPlayer(moves));
+		}
+		if (store != null && games == 0) {
+			usage("-store requires -games");
+		} else if (store != null) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			try (GameStore saved = GameStore.open(Path.of(store), games, width, height, save, force)) {
+				System.out.println(new BatchSimulator(simulator, pool).run(seed, games, ticks, saved));
+			}
+			pool.shutdown();
+		} else if (games > 0) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			System.out.println(new BatchSimulator(simulator, pool).run(seed, games, ticks));
+			pool.shutdown();
+		} else {
+			System.out.println(simulator.run(seed, ticks));
+		}
+	}
+
+	/**
+	 * Check whether at least one shape of tetromino can be issued onto an empty
+	 * board of a given size. Otherwise, every game would be over before being
+	 * clocked, and a simulation would never use up its budget of cycles.
+	 *
+	 * @param width
+	 * @param height
+	 * @return
+	 */
+	private static boolean canSpawn(int width, int height) {
+		if (width < 1 || width > Long.SIZE || height < 1) {
+			return false;
+		}
+		Board board = new Board(null, width, height);
+		for (Shape shape : Shape.values()) {
+			// Issued as a game would (see Game)
+			long t = PackedTetromino.pack(width / 2, height - 2, shape.getTetromino(Orientation.NORTH, Color.RED));
+			if (board.canPlaceTetromino(t)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void usage(String message) {
+		System.err.println(message);
+		System.err.println(
+				"usage: Simulator [-width n] [-height n] [-seed n] [-ticks n] [-script moves] [-auto ms] [-beam n] [-games n] [-threads n] [-store file] [-save n] [-force n]");
+		System.exit(1);
+	}
+}
@@ -0,0 +1,151 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.simulation;
+
+/**
+ * Accumulates statistics about one or more simulated games, including how
+ * quickly they were simulated.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public class Statistics {
+	/**
+	 * The number of games completed.
+	 */
+	private long games;
+	/**
+	 * The number of cycles the games were clocked for.
+	 */
+	private long ticks;
+	/**
+	 * The number of valid moves applied.
+	 */
+	private long moves;
+	/**
+	 * The total number of lines removed.
+	 */
+	private long lines;
+	/**
+	 * The total score across all games.
+	 */
+	private long score;
+	/**
+	 * The highest score of any one game.
+	 */
+	private int bestScore;
+	/**
+	 * The time spent simulating, in nanoseconds.
+	 */
+	private long nanos;
+
+	/**
+	 * Record a single completed game.
+	 *
+	 * @param ticks Number of cycles the game was clocked for.
+	 * @param moves Number of valid moves applied.
+	 * @param lines Number of lines removed.
+	 * @param score Final score of the game.
+	 */
+	public void addGame(long ticks, long moves, int lines, int score) {
+		this.games++;
+		this.ticks += ticks;
+		this.moves += moves;
+		this.lines += lines;
+		this.score += score;
+		this.bestScore = Math.max(bestScore, score);
+	}
+
+	/**
+	 * Record time spent simulating.
+	 *
+	 * @param nanos
+	 */
+	public void addTime(long nanos) {
+		this.nanos += nanos;
+	}
+
+	/**
+	 * Combine the statistics from another set of games into this one.
+	 *
+	 * @param other
+	 */
+	public void add(Statistics other) {
+		this.games += other.games;
+		this.ticks += other.ticks;
+		this.moves += other.moves;
+		this.lines += other.lines;
+		this.score += other.score;
+		this.bestScore = Math.max(bestScore, other.bestScore);
+		this.nanos += other.nanos;
+	}
+
+	public long getGames() {
+		return games;
+	}
+
+	public long getTicks() {
+		return ticks;
+	}
+
+	public long getMoves() {
+		return moves;
+	}
+
+	public long getLines() {
+		return lines;
+	}
+
+	public long getScore() {
+		return score;
+	}
+
+	public int getBestScore() {
+		return bestScore;
+	}
+
+	public long getNanos() {
+		return nanos;
+	}
+
+	/**
+	 * Get the average score per game.
+	 *
+	 * @return
+	 */
+	public double getAverageScore() {
+		return games == 0 ? 0 : (double) score / games;
+	}
+
+	/**
+	 * Get the number of games completed per second of simulation.
+	 *
+	 * @return
+	 */
+	public double getGamesPerSecond() {
+		return perSecond(games);
+	}
+
+	/**
+	 * Get the number of cycles clocked per second of simulation.
+	 *
+	 * @return
+	 */
+	public double getTicksPerSecond() {
+		return perSecond(ticks);
+	}
+
+	private double perSecond(long count) {
+		return nanos == 0 ? 0 : count * 1e9 / nanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"games: %d, ticks: %d, moves: %d, lines: %d, average score: %.1f, best score: %d%n"
+						+ "time: %.3fs, games/sec: %.1f, ticks/sec: %.0f",
+				games, ticks, moves, lines, getAverageScore(), bestScore, nanos / 1e9, getGamesPerSecond(),
+				getTicksPerSecond());
+	}
+}
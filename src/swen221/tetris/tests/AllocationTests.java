@@ -0,0 +1,84 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import swen221.tetris.logic.Board;
+import swen221.tetris.logic.Game;
+import swen221.tetris.tetromino.*;
+import swen221.tetris.tetromino.Tetromino;
+import swen221.tetris.tetromino.Tetromino.Color;
+import swen221.tetris.tetromino.Tetromino.Orientation;
+
+/**
+ * Checks that the hot paths of the game engine do not allocate. These use the
+ * number of bytes allocated by the current thread, as reported by the JVM. Since
+ * the JVM itself occasionally allocates a few bytes on the thread (e.g. when
+ * compiling), these check the average allocated per iteration is zero.
+ */
+public class AllocationTests {
+
+	@Test public void test_01() {
+		Tetromino[] tetrominos = {
+			new T_Tetromino(Orientation.NORTH, Color.BLUE),
+			new O_Tetromino(Color.BLUE)
+		};
+		Game game = new Game(Arrays.asList(tetrominos).iterator(),10,2000);
+		// T Tetromino
+		game.clock();
+		// Apply gravity for a while
+		tick(game, 100);
+		long bytes = allocatedBytes(() -> tick(game, 1000));
+		assertEquals(0, bytes / 1000);
+	}
+
+	@Test public void test_02() {
+		Tetromino[] tetrominos = {
+			new I_Tetromino(Orientation.NORTH, Color.RED),
+			new O_Tetromino(Color.BLUE)
+		};
+		Game game = new Game(Arrays.asList(tetrominos).iterator(),10,20);
+		// I Tetromino
+		game.clock();
+		Board board = game.getActiveBoard();
+		// Move active tetromino back and forth
+		wiggle(board, 100);
+		long bytes = allocatedBytes(() -> wiggle(board, 1000));
+		assertEquals(0, bytes / 1000);
+	}
+
+	private static void tick(Game game, int n) {
+		for (int i = 0; i != n; ++i) {
+			game.clock();
+		}
+	}
+
+	private static void wiggle(Board board, int n) {
+		for (int i = 0; i != n; ++i) {
+			board.translateActiveTetromino(1, 0);
+			board.rotateActiveTetromino(1);
+			board.translateActiveTetromino(-1, 0);
+			board.rotateActiveTetromino(-1);
+			assertTrue(board.canPlaceTetromino(board.getPackedActiveTetromino()));
+		}
+	}
+
+	/**
+	 * Determine the number of bytes allocated by the current thread whilst running
+	 * a given task.
+	 */
+	private static long allocatedBytes(Runnable task) {
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		// NOTE: first call ensures any lazy initialisation is out of the way.
+		bean.getCurrentThreadAllocatedBytes();
+		long before = bean.getCurrentThreadAllocatedBytes();
+		task.run();
+		return bean.getCurrentThreadAllocatedBytes() - before;
+	}
+}
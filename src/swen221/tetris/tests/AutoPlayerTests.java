@@ -0,0 +1,115 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import swen221.tetris.ai.AutoPlayer;
+import swen221.tetris.ai.BeamSearchPlayer;
+import swen221.tetris.ai.Bitboard;
+import swen221.tetris.ai.Evaluator;
+import swen221.tetris.logic.Board;
+import swen221.tetris.simulation.Simulator;
+import swen221.tetris.simulation.Statistics;
+import swen221.tetris.tetromino.*;
+import swen221.tetris.tetromino.Tetromino.Color;
+
+/**
+ * Tests for the computer player.
+ */
+public class AutoPlayerTests {
+
+	@Test public void test_01() {
+		// Each feature is counted correctly
+		Board board = new Board(null, 4, 5);
+		Tetromino filler = new O_Tetromino(Color.RED);
+		// Heights 3, 0, 1, 2 with holes at (0,0), (0,1) and (3,0)
+		board.setPlacedTetrominoAt(0, 2, filler);
+		board.setPlacedTetrominoAt(2, 0, filler);
+		board.setPlacedTetrominoAt(3, 1, filler);
+		Bitboard bits = new Bitboard(board);
+		assertEquals(6.0, new Evaluator(1, 0, 0, 0).evaluate(bits, 0));
+		assertEquals(3.0, new Evaluator(0, 1, 0, 0).evaluate(bits, 0));
+		assertEquals(5.0, new Evaluator(0, 0, 1, 0).evaluate(bits, 0));
+		assertEquals(3.0, new Evaluator(0, 0, 0, 1).evaluate(bits, 3));
+	}
+
+	@Test public void test_02() {
+		// Clearing full rows moves the rows above down
+		Board board = new Board(null, 3, 4);
+		Tetromino filler = new O_Tetromino(Color.RED);
+		for (int x = 0; x != 3; ++x) {
+			board.setPlacedTetrominoAt(x, 0, filler);
+			board.setPlacedTetrominoAt(x, 2, filler);
+		}
+		board.setPlacedTetrominoAt(1, 1, filler);
+		board.setPlacedTetrominoAt(2, 3, filler);
+		Bitboard bits = new Bitboard(board);
+		assertEquals(2, bits.clearFullRows());
+		assertEquals(
+			"|_|_|_|\n" +
+			"|_|_|_|\n" +
+			"|_|_|#|\n" +
+			"|_|#|_|\n", bits.toString());
+	}
+
+	@Test public void test_03() {
+		// The computer player clears lines and survives
+		Simulator simulator = new Simulator(10, 20, AutoPlayer::new);
+		Statistics stats = new Statistics();
+		simulator.play(1, 5_000, stats);
+		assertEquals(5_000, stats.getTicks());
+		assertTrue(stats.getLines() > 50);
+	}
+
+	@Test public void test_04() {
+		// The beam search player clears lines and survives
+		ForkJoinPool pool = new ForkJoinPool(2);
+		Simulator simulator = new Simulator(10, 20, seed -> new BeamSearchPlayer(new BagSequence(seed), 8, 3,
+				Evaluator.DEFAULT, AutoPlayer.DEFAULT_BUDGET, pool));
+		Statistics stats = new Statistics();
+		simulator.play(1, 2_000, stats);
+		pool.shutdown();
+		assertEquals(2_000, stats.getTicks());
+		assertTrue(stats.getLines() > 20);
+	}
+
+	@Test public void test_05() {
+		// The beam search player makes the same moves however its workers are
+		// scheduled
+		ForkJoinPool pool = new ForkJoinPool(4);
+		Simulator simulator = new Simulator(10, 20, seed -> new BeamSearchPlayer(new BagSequence(seed), 32, 4,
+				Evaluator.DEFAULT, 1_000_000_000L, pool));
+		Statistics first = new Statistics();
+		simulator.play(11, 1_000, first);
+		for (int i = 0; i != 3; ++i) {
+			Statistics next = new Statistics();
+			simulator.play(11, 1_000, next);
+			assertEquals(first.getScore(), next.getScore());
+			assertEquals(first.getMoves(), next.getMoves());
+		}
+		pool.shutdown();
+	}
+
+	@Test public void test_06() {
+		// A beam wider than a transposition table can hold the children of still
+		// plays deterministically, and wider beams are rejected
+		ForkJoinPool pool = new ForkJoinPool(4);
+		Simulator simulator = new Simulator(10, 20, seed -> new BeamSearchPlayer(new BagSequence(seed), 64, 3,
+				Evaluator.DEFAULT, 1_000_000_000L, pool));
+		Statistics first = new Statistics();
+		simulator.play(5, 300, first);
+		Statistics second = new Statistics();
+		simulator.play(5, 300, second);
+		pool.shutdown();
+		assertEquals(300, first.getTicks());
+		assertEquals(first.getScore(), second.getScore());
+		assertEquals(first.getMoves(), second.getMoves());
+		assertThrows(IllegalArgumentException.class, () -> new BeamSearchPlayer(new BagSequence(5),
+				BeamSearchPlayer.MAX_WIDTH + 1, 3, Evaluator.DEFAULT, 1, pool));
+	}
+}
@@ -0,0 +1,310 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.junit.jupiter.api.Test;
+import swen221.tetris.logic.Board;
+import swen221.tetris.logic.Game;
+import swen221.tetris.logic.Snapshot;
+import swen221.tetris.moves.*;
+import swen221.tetris.tetromino.*;
+import swen221.tetris.tetromino.Tetromino;
+import swen221.tetris.tetromino.Tetromino.Color;
+import swen221.tetris.tetromino.Tetromino.Orientation;
+
+/**
+ * Tests which manipulate a board directly, rather than through a game.
+ */
+public class BoardTests {
+
+	@Test public void test_01() {
+		// Drop onto an uneven surface
+		Board board = board(
+			"|_|_|_|_|_|\n" +
+			"|_|_|_|_|_|\n" +
+			"|_|_|_|_|_|\n" +
+			"|_|_|_|R|_|\n" +
+			"|R|_|_|R|_|\n");
+		board.setActiveTetromino(new ActiveTetromino(2, 3, new J_Tetromino(Orientation.NORTH, Color.BLUE)));
+		board = new DropMove().apply(board);
+		String expected=
+			"|_|_|_|_|_|\n" +
+			"|_|B|_|_|_|\n" +
+			"|_|B|B|B|_|\n" +
+			"|_|_|_|R|_|\n" +
+			"|R|_|_|R|_|\n";
+		assertEquals(expected, board.toString());
+		assertEquals(2, board.getColumnHeight(3));
+	}
+
+	@Test public void test_02() {
+		// Drop into a well
+		Board board = board(
+			"|_|_|_|_|_|\n" +
+			"|_|_|_|_|_|\n" +
+			"|_|_|_|_|_|\n" +
+			"|R|R|_|R|R|\n" +
+			"|R|R|_|R|R|\n");
+		board.setActiveTetromino(new ActiveTetromino(2, 3, new I_Tetromino(Orientation.EAST, Color.BLUE)));
+		board = new DropMove().apply(board);
+		String expected=
+			"|_|_|_|_|_|\n" +
+			"|_|_|B|_|_|\n" +
+			"|_|_|B|_|_|\n" +
+			"|R|R|B|R|R|\n" +
+			"|R|R|B|R|R|\n";
+		assertEquals(expected, board.toString());
+		assertEquals(0, board.getColumnHeight(2));
+	}
+
+	@Test public void test_03() {
+		// Drop underneath an overhang
+		Board board = board(
+			"|_|_|_|_|_|\n" +
+			"|_|R|R|R|R|\n" +
+			"|_|_|_|_|_|\n" +
+			"|_|_|_|_|_|\n" +
+			"|R|_|_|_|_|\n");
+		board.setActiveTetromino(new ActiveTetromino(2, 2, new T_Tetromino(Orientation.SOUTH, Color.BLUE)));
+		board = new DropMove().apply(board);
+		String expected=
+			"|_|_|_|_|_|\n" +
+			"|_|R|R|R|R|\n" +
+			"|_|_|_|_|_|\n" +
+			"|_|B|B|B|_|\n" +
+			"|R|_|B|_|_|\n";
+		assertEquals(expected, board.toString());
+	}
+
+	@Test public void test_04() {
+		// Clearing a cell updates the column height
+		Board board = board(
+			"|_|_|_|_|_|\n" +
+			"|_|R|_|_|_|\n" +
+			"|_|_|_|_|_|\n" +
+			"|_|R|_|_|_|\n" +
+			"|_|_|_|_|_|\n");
+		assertEquals(4, board.getColumnHeight(1));
+		board.setPlacedTetrominoAt(1, 3, null);
+		assertEquals(2, board.getColumnHeight(1));
+		board.setPlacedTetrominoAt(1, 1, null);
+		assertEquals(0, board.getColumnHeight(1));
+	}
+
+	@Test public void test_05() {
+		// Clear rows which are not adjacent
+		Board board = board(
+			"|_|R|_|_|_|\n" +
+			"|R|R|R|R|R|\n" +
+			"|R|_|R|_|_|\n" +
+			"|R|R|R|R|R|\n" +
+			"|_|_|R|_|R|\n");
+		assertEquals(2, board.checkForFullLines());
+		String expected=
+			"|_|_|_|_|_|\n" +
+			"|_|_|_|_|_|\n" +
+			"|_|R|_|_|_|\n" +
+			"|R|_|R|_|_|\n" +
+			"|_|_|R|_|R|\n";
+		assertEquals(expected, board.toString());
+		assertEquals(2, board.getColumnHeight(0));
+		assertEquals(3, board.getColumnHeight(1));
+		assertEquals(0, board.getColumnHeight(3));
+		assertEquals(1, board.getColumnHeight(4));
+	}
+
+	@Test public void test_06() {
+		// Clear four rows at once
+		Tetromino[] tetrominos = {
+			new I_Tetromino(Orientation.EAST, Color.BLUE),
+			new O_Tetromino(Color.BLUE)
+		};
+		Game game = new Game(Arrays.asList(tetrominos).iterator(),5,8);
+		Board board = game.getActiveBoard();
+		for (int y = 0; y != 4; ++y) {
+			for (int x = 0; x != 4; ++x) {
+				board.setPlacedTetrominoAt(x, y, tetrominos[1]);
+			}
+		}
+		// I Tetromino
+		game.clock();
+		game.apply(new MoveRight());
+		game.apply(new MoveRight());
+		game.apply(new DropMove());
+		game.clock();
+		assertEquals(4, game.getLines());
+		assertEquals(800, game.getScore());
+		assertEquals(0, game.getActiveBoard().getColumnHeight(0));
+	}
+
+	@Test public void test_07() {
+		// Copies of a board are independent
+		String text =
+			"|_|_|_|_|_|\n" +
+			"|_|_|_|_|_|\n" +
+			"|R|_|_|_|_|\n" +
+			"|R|R|_|R|_|\n" +
+			"|R|R|R|R|_|\n";
+		Board original = board(text);
+		Board copy = new Board(original);
+		copy.setPlacedTetrominoAt(4, 0, new O_Tetromino(Color.BLUE));
+		copy.checkForFullLines();
+		original.setPlacedTetrominoAt(2, 1, new O_Tetromino(Color.BLUE));
+		assertEquals(
+			"|_|_|_|_|_|\n" +
+			"|_|_|_|_|_|\n" +
+			"|R|_|_|_|_|\n" +
+			"|R|R|B|R|_|\n" +
+			"|R|R|R|R|_|\n", original.toString());
+		assertEquals(
+			"|_|_|_|_|_|\n" +
+			"|_|_|_|_|_|\n" +
+			"|_|_|_|_|_|\n" +
+			"|R|_|_|_|_|\n" +
+			"|R|R|_|R|_|\n", copy.toString());
+		// Copies of the copy are independent as well
+		Board other = new Board(copy);
+		other.setPlacedTetrominoAt(0, 4, new O_Tetromino(Color.BLUE));
+		assertNull(copy.getPlacedTetrominoAt(0, 4));
+		assertNull(original.getPlacedTetrominoAt(0, 4));
+	}
+
+	@Test public void test_08() {
+		// Only rows changed through the game are reported
+		Tetromino o = new O_Tetromino(Color.BLUE);
+		Game game = new Game(Arrays.asList(o, o, o).iterator(), 6, 8);
+		BitSet rows = new BitSet();
+		game.collectChangedRows(rows);
+		assertEquals(8, rows.cardinality());
+		rows.clear();
+		game.collectChangedRows(rows);
+		assertTrue(rows.isEmpty());
+		// Promoting the next tetromino changes only the rows it spans
+		game.clock();
+		game.collectChangedRows(rows);
+		assertEquals(2, rows.cardinality());
+		assertTrue(rows.nextSetBit(0) >= 5);
+		rows.clear();
+		// Dropping changes both where it was and where it lands
+		game.apply(new DropMove());
+		game.collectChangedRows(rows);
+		assertEquals(4, rows.cardinality());
+		assertTrue(rows.get(0) && rows.get(1));
+	}
+
+	@Test public void test_09() {
+		// Snapshots share the rows which have not changed
+		Tetromino o = new O_Tetromino(Color.BLUE);
+		Game game = new Game(Arrays.asList(o, o, o).iterator(), 6, 8);
+		Snapshot first = game.snapshot(null);
+		game.clock();
+		Snapshot second = game.snapshot(first);
+		for (int y = 0; y != 8; ++y) {
+			assertEquals(y < 6, second.isRowSharedWith(first, y));
+		}
+		// A snapshot is unaffected by later changes to the game
+		game.apply(new DropMove());
+		Snapshot third = game.snapshot(second);
+		assertNull(second.getColorAt(3, 0));
+		assertEquals(Color.BLUE, third.getColorAt(3, 0));
+		assertNull(third.getColorAt(3, 6));
+		assertEquals(Color.BLUE, second.getColorAt(3, 6));
+		assertEquals(1, third.getTetrominoCount());
+	}
+
+	@Test public void test_10() {
+		// A board encoded in binary form decodes to the same board
+		Board board = board(
+			"|_|_|_|_|_|_|_|\n" +
+			"|_|_|_|_|_|_|_|\n" +
+			"|_|_|_|_|_|_|_|\n" +
+			"|_|_|_|_|_|R|_|\n" +
+			"|R|R|_|R|R|R|_|\n");
+		Color[] colors = Color.values();
+		for (int i = 0; i != colors.length; ++i) {
+			board.setPlacedTetrominoAt(i, 0, new O_Tetromino(colors[i]));
+		}
+		board.setActiveTetromino(new ActiveTetromino(2, 3, new J_Tetromino(Orientation.EAST, Color.GREEN)));
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+		board.write(buffer);
+		// Thirty-five cells take two longs
+		assertEquals(Board.getEncodedSize(7, 5), buffer.position());
+		assertEquals(28, buffer.position());
+		buffer.flip();
+		Board decoded = new Board(null, 7, 5);
+		decoded.read(buffer);
+		assertFalse(buffer.hasRemaining());
+		assertEquals(board.toString(), decoded.toString());
+		assertEquals(board.getHash(), decoded.getHash());
+		for (int x = 0; x != 7; ++x) {
+			assertEquals(board.getColumnHeight(x), decoded.getColumnHeight(x));
+		}
+		// Decoding overwrites a board in place, without affecting its copies
+		Board other = board(
+			"|R|R|R|R|R|R|R|\n" +
+			"|_|_|_|_|_|_|_|\n" +
+			"|R|_|R|_|R|_|R|\n" +
+			"|_|_|_|_|_|_|_|\n" +
+			"|R|_|_|_|_|_|_|\n");
+		String before = other.toString();
+		Board copy = new Board(other);
+		buffer.rewind();
+		other.read(buffer);
+		assertEquals(board.toString(), other.toString());
+		assertEquals(board.getHash(), other.getHash());
+		assertEquals(2, other.getColumnHeight(5));
+		assertEquals(before, copy.toString());
+		// A landed flag set through the unpacked active tetromino is encoded
+		board.getActiveTetromino().setHasLanded(true);
+		buffer.clear();
+		board.write(buffer);
+		buffer.flip();
+		decoded.read(buffer);
+		assertTrue(PackedTetromino.isLanded(decoded.getPackedActiveTetromino()));
+		assertEquals(board.getPackedActiveTetromino(), decoded.getPackedActiveTetromino());
+		// Boards of a different size are rejected
+		buffer.rewind();
+		assertThrows(IllegalArgumentException.class, () -> new Board(null, 5, 7).read(buffer));
+	}
+
+	@Test public void test_11() {
+		// Landing the active tetromino of a copy does not affect the original
+		Board board = new Board(null, 5, 5);
+		board.setActiveTetromino(new ActiveTetromino(2, 3, new O_Tetromino(Color.RED)));
+		Board copy = new Board(board);
+		copy.landActiveTetromino();
+		assertTrue(copy.getActiveTetromino().getHasLanded());
+		assertFalse(board.getActiveTetromino().getHasLanded());
+		assertNotSame(board.getActiveTetromino(), copy.getActiveTetromino());
+		// The landed status of the original is carried over to later copies
+		board.getActiveTetromino().setHasLanded(true);
+		assertTrue(new Board(board).getActiveTetromino().getHasLanded());
+	}
+
+	/**
+	 * Construct a board from its textual representation, where any non-empty cell
+	 * is filled with a red tetromino.
+	 */
+	private static Board board(String text) {
+		String[] rows = text.split("\n");
+		int width = (rows[0].length() - 1) / 2;
+		Board board = new Board(null, width, rows.length);
+		Tetromino filler = new O_Tetromino(Color.RED);
+		for (int i = 0; i != rows.length; ++i) {
+			int y = rows.length - i - 1;
+			for (int x = 0; x != width; ++x) {
+				if (rows[i].charAt((x * 2) + 1) != '_') {
+					board.setPlacedTetrominoAt(x, y, filler);
+				}
+			}
+		}
+		return board;
+	}
+}
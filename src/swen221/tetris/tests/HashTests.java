@@ -0,0 +1,129 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import swen221.tetris.ai.Bitboard;
+import swen221.tetris.ai.DuplicateFilter;
+import swen221.tetris.ai.TranspositionTable;
+import swen221.tetris.logic.Board;
+import swen221.tetris.moves.*;
+import swen221.tetris.tetromino.*;
+import swen221.tetris.tetromino.Tetromino;
+import swen221.tetris.tetromino.Tetromino.Color;
+import swen221.tetris.tetromino.Tetromino.Orientation;
+
+/**
+ * Tests for hashing boards, and for recording hashed boards in a transposition
+ * table.
+ */
+public class HashTests {
+
+	@Test public void test_01() {
+		// Hash is maintained as cells are placed and lines cleared
+		Board board = new Board(null, 4, 6);
+		assertEquals(0, board.getOccupancyHash());
+		Tetromino filler = new O_Tetromino(Color.RED);
+		board.setPlacedTetrominoAt(0, 0, filler);
+		board.setPlacedTetrominoAt(1, 0, filler);
+		board.setPlacedTetrominoAt(3, 0, filler);
+		board.setPlacedTetrominoAt(2, 1, filler);
+		board.placeTetromino(new ActiveTetromino(2, 2, new I_Tetromino(Orientation.EAST, Color.BLUE)));
+		assertEquals(rehash(board), board.getOccupancyHash());
+		assertEquals(new Bitboard(board).getHash(), board.getOccupancyHash());
+		assertEquals(1, board.checkForFullLines());
+		assertEquals(rehash(board), board.getOccupancyHash());
+		board.setPlacedTetrominoAt(2, 0, null);
+		assertEquals(rehash(board), board.getOccupancyHash());
+		// Clearing every cell gives the empty hash
+		for (int y = 0; y != board.getHeight(); ++y) {
+			for (int x = 0; x != board.getWidth(); ++x) {
+				board.setPlacedTetrominoAt(x, y, null);
+			}
+		}
+		assertEquals(0, board.getOccupancyHash());
+	}
+
+	@Test public void test_02() {
+		// Different move orders reaching the same board have the same hash
+		Board board = new Board(null, 10, 20);
+		board.setActiveTetromino(new ActiveTetromino(5, 18, new T_Tetromino(Orientation.NORTH, Color.BLUE)));
+		Board b1 = new MoveDown().apply(new MoveLeft().apply(board));
+		Board b2 = new MoveLeft().apply(new MoveDown().apply(board));
+		assertEquals(b1.getHash(), b2.getHash());
+		assertNotEquals(board.getHash(), b1.getHash());
+		// But the active tetromino only counts towards the full hash
+		assertEquals(board.getOccupancyHash(), b1.getOccupancyHash());
+	}
+
+	@Test public void test_03() {
+		// Entries are found until a new search starts
+		TranspositionTable table = new TranspositionTable(64);
+		assertEquals(TranspositionTable.MISS, table.probe(123));
+		table.store(123, 1.5f, 3, 42);
+		long data = table.probe(123);
+		assertNotEquals(TranspositionTable.MISS, data);
+		assertEquals(1.5f, TranspositionTable.getScore(data));
+		assertEquals(3, TranspositionTable.getDepth(data));
+		assertEquals(42, TranspositionTable.getMove(data));
+		// Same bucket, but a different board
+		assertEquals(TranspositionTable.MISS, table.probe(123 + (1L << 40)));
+		table.newSearch();
+		assertEquals(TranspositionTable.MISS, table.probe(123));
+	}
+
+	@Test public void test_04() {
+		// Deeper entries survive, whilst others replace each other
+		TranspositionTable table = new TranspositionTable(2);
+		table.store(1, 0, 5, 0);
+		table.store(2, 0, 1, 0);
+		table.store(3, 0, 1, 0);
+		assertEquals(5, TranspositionTable.getDepth(table.probe(1)));
+		assertEquals(TranspositionTable.MISS, table.probe(2));
+		assertEquals(1, TranspositionTable.getDepth(table.probe(3)));
+	}
+
+	@Test public void test_05() {
+		// Duplicates are found amongst sparse slots well beyond the largest move a
+		// transposition table can record, keeping the best (or earliest) of each
+		int stride = 1344;
+		DuplicateFilter filter = new DuplicateFilter(64 * stride);
+		filter.reset();
+		for (int p = 0; p != 64; ++p) {
+			for (int i = 0; i != 34; ++i) {
+				int slot = (p * stride) + i;
+				// Each parent leads to the same boards, scoring best from parent 50
+				double score = p == 50 ? 1 : 0;
+				int discarded = filter.offer(slot, 1000 + i, score);
+				if (p == 0) {
+					assertEquals(DuplicateFilter.NONE, discarded);
+				} else if (p == 50) {
+					assertEquals(i, discarded);
+				} else {
+					assertEquals(slot, discarded);
+				}
+			}
+		}
+		assertTrue(50 * stride > TranspositionTable.MAX_MOVE);
+		// Resetting forgets every candidate
+		filter.reset();
+		assertEquals(DuplicateFilter.NONE, filter.offer(0, 1000, 0));
+	}
+
+	/**
+	 * Compute the hash of a board from scratch, by copying its cells onto an empty
+	 * board.
+	 */
+	private static long rehash(Board board) {
+		Board copy = new Board(null, board.getWidth(), board.getHeight());
+		for (int y = 0; y != board.getHeight(); ++y) {
+			for (int x = 0; x != board.getWidth(); ++x) {
+				copy.setPlacedTetrominoAt(x, y, board.getPlacedTetrominoAt(x, y));
+			}
+		}
+		return copy.getOccupancyHash();
+	}
+}
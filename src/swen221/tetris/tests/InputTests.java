@@ -0,0 +1,82 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import swen221.tetris.logic.Game;
+import swen221.tetris.logic.InputQueue;
+import swen221.tetris.moves.*;
+import swen221.tetris.tetromino.*;
+import swen221.tetris.tetromino.Tetromino.Color;
+import swen221.tetris.tetromino.Tetromino.Orientation;
+
+/**
+ * Tests for the queue of moves waiting to be applied to a game.
+ */
+public class InputTests {
+
+	@Test public void test_01() {
+		// Moves come out in the order they went in, until the queue is full
+		InputQueue queue = new InputQueue(4);
+		Move[] moves = { new MoveLeft(), new MoveRight(), new MoveDown(), new DropMove(), new MoveLeft() };
+		for (int i = 0; i != 4; ++i) {
+			assertTrue(queue.offer(moves[i]));
+		}
+		assertFalse(queue.offer(moves[4]));
+		assertSame(moves[0], queue.poll());
+		assertTrue(queue.offer(moves[4]));
+		for (int i = 1; i != 5; ++i) {
+			assertSame(moves[i], queue.poll());
+		}
+		assertNull(queue.poll());
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test public void test_02() {
+		// Draining a queue applies its moves to the game
+		Tetromino t = new T_Tetromino(Orientation.NORTH, Color.BLUE);
+		Game game = new Game(Arrays.asList(t, t).iterator(), 10, 20);
+		game.clock();
+		InputQueue queue = new InputQueue(8);
+		queue.offer(new MoveLeft());
+		queue.offer(new MoveLeft());
+		queue.offer(new DropMove());
+		assertEquals(3, queue.drainTo(game));
+		assertTrue(queue.isEmpty());
+		long active = game.getActiveBoard().getPackedActiveTetromino();
+		assertEquals(3, PackedTetromino.getX(active));
+		assertEquals(active, game.getActiveBoard().dropTetromino(active));
+	}
+
+	@Test public void test_03() throws InterruptedException {
+		// Moves added by one thread are seen by another in order
+		InputQueue queue = new InputQueue(16);
+		Move[] moves = { new MoveLeft(), new MoveRight(), new MoveDown() };
+		int n = 100_000;
+		Thread producer = new Thread(() -> {
+			for (int i = 0; i != n; ++i) {
+				while (!queue.offer(moves[i % moves.length])) {
+					Thread.onSpinWait();
+				}
+			}
+		});
+		producer.start();
+		for (int i = 0; i != n;) {
+			Move move = queue.poll();
+			if (move == null) {
+				queue.await(1_000_000);
+			} else {
+				assertSame(moves[i % moves.length], move);
+				i++;
+			}
+		}
+		producer.join();
+		assertTrue(queue.isEmpty());
+	}
+}
@@ -9,6 +9,7 @@ import java.util.Arrays;
 
 import org.junit.jupiter.api.Test;
 import swen221.tetris.logic.Game;
+import swen221.tetris.logic.Rectangle;
 import swen221.tetris.moves.*;
 import swen221.tetris.tetromino.*;
 import swen221.tetris.tetromino.Tetromino;
@@ -691,4 +692,120 @@ public class Part1Tests {
 			"|_|_|_|_|_|\n";
 		assertEquals(expected, game.getActiveBoard().toString());
 	}
+
+	@Test public void test_41() {
+		// Every shape, orientation and color has one canonical instance
+		for (Shape shape : Shape.values()) {
+			for (Color color : Color.values()) {
+				for (Orientation orientation : Orientation.values()) {
+					Tetromino t = shape.getTetromino(orientation, color);
+					assertNotNull(t);
+					assertSame(t, shape.getTetromino(orientation, color));
+					assertSame(shape, t.getShape());
+					assertSame(color, t.getColor());
+					if (shape == Shape.O) {
+						// NOTE: orientation fixed for this tetromino
+						assertSame(shape.getTetromino(Orientation.NORTH, color), t);
+					} else {
+						assertSame(orientation, t.getOrientation());
+					}
+				}
+			}
+		}
+	}
+
+	@Test public void test_42() {
+		// Rotating gives the canonical instance
+		for (Shape shape : Shape.values()) {
+			for (Color color : Color.values()) {
+				for (Orientation orientation : Orientation.values()) {
+					Tetromino t = shape.getTetromino(orientation, color);
+					for (int steps = -4; steps <= 4; ++steps) {
+						assertSame(shape.getTetromino(orientation.rotate(steps), color), t.rotate(steps));
+					}
+				}
+			}
+		}
+		Tetromino t = Shape.T.getTetromino(Orientation.NORTH, Color.BLUE);
+		assertSame(Shape.T.getTetromino(Orientation.EAST, Color.BLUE), t.rotate(1));
+		assertSame(Shape.T.getTetromino(Orientation.WEST, Color.BLUE), t.rotate(-1));
+		assertSame(t, t.rotate(1).rotate(1).rotate(1).rotate(1));
+	}
+	@Test public void test_43() {
+		// Precomputed cells, row masks and column bottoms match the shape
+		for (Shape shape : Shape.values()) {
+			for (Orientation orientation : Orientation.values()) {
+				for (int x = -3; x <= 3; ++x) {
+					for (int y = -3; y <= 3; ++y) {
+						assertEquals(isWithin(shape, orientation, x, y), shape.isWithin(orientation, x, y));
+					}
+				}
+				Rectangle box = shape.getBoundingBox(orientation);
+				int count = 0;
+				for (int x = box.getMinX(); x <= box.getMaxX(); ++x) {
+					int bottom = Integer.MAX_VALUE;
+					for (int y = box.getMinY(); y <= box.getMaxY(); ++y) {
+						boolean within = isWithin(shape, orientation, x, y);
+						long bit = 1L << (x - box.getMinX());
+						assertEquals(within, (shape.getRowMask(orientation, y - box.getMinY()) & bit) != 0);
+						if (within) {
+							count++;
+							bottom = Math.min(bottom, y);
+							boolean found = false;
+							for (int i = 0; i != Shape.CELLS; ++i) {
+								found |= shape.getCellX(orientation, i) == x && shape.getCellY(orientation, i) == y;
+							}
+							assertTrue(found);
+						}
+					}
+					// Every column of the bounding box is occupied
+					assertEquals(bottom, shape.getColumnBottom(orientation, x - box.getMinX()));
+				}
+				// Every cell lies within the bounding box, and no cell is repeated
+				assertEquals(Shape.CELLS, count);
+				for (int y = box.getMinY(); y <= box.getMaxY(); ++y) {
+					assertNotEquals(0, shape.getRowMask(orientation, y - box.getMinY()));
+					assertEquals(0, shape.getRowMask(orientation, y - box.getMinY()) >>> ((box.getMaxX() - box.getMinX()) + 1));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Check whether a given cell is within a shape facing in a given orientation,
+	 * as determined by each tetromino before its cells were precomputed.
+	 */
+	private static boolean isWithin(Shape shape, Orientation orientation, int x, int y) {
+		switch (orientation) {
+		case SOUTH:
+			return isWithin(shape, -x, -y);
+		case EAST:
+			return isWithin(shape, -y, x);
+		case WEST:
+			return isWithin(shape, y, -x);
+		case NORTH:
+		default:
+			return isWithin(shape, x, y);
+		}
+	}
+
+	private static boolean isWithin(Shape shape, int x, int y) {
+		switch (shape) {
+		case I:
+			return x >= -1 && x <= 2 && y == 0;
+		case J:
+			return (x >= -1 && x <= 1 && y == 0) || (x == -1 && y == 1);
+		case L:
+			return (x >= -1 && x <= 1 && y == 0) || (x == 1 && y == 1);
+		case O:
+			return x >= 0 && x <= 1 && y >= 0 && y <= 1;
+		case S:
+			return (x == -1 && y == 0) || (x == 0 && y == 1) || (x == 0 && y == 0) || (x == 1 && y == 1);
+		case T:
+			return (x >= -1 && x <= 1 && y == 0) || (x == 0 && y == 1);
+		case Z:
+		default:
+			return (x >= 0 && x <= 1 && y == 0) || (x >= -1 && x <= 0 && y == 1);
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,113 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import swen221.tetris.ai.PlacementFinder;
+import swen221.tetris.logic.Board;
+import swen221.tetris.moves.Move;
+import swen221.tetris.tetromino.*;
+import swen221.tetris.tetromino.Tetromino;
+import swen221.tetris.tetromino.Tetromino.Color;
+import swen221.tetris.tetromino.Tetromino.Orientation;
+
+/**
+ * Tests for finding where the active tetromino can come to rest.
+ */
+public class PlacementTests {
+
+	@Test public void test_01() {
+		// Every orientation of a T in every column
+		Board board = new Board(null, 10, 20);
+		board.setActiveTetromino(new ActiveTetromino(5, 18, new T_Tetromino(Orientation.NORTH, Color.BLUE)));
+		assertEquals(34, find(board).length);
+	}
+
+	@Test public void test_02() {
+		// Orientations of I and O which occupy the same cells are reported once
+		Board board = new Board(null, 10, 20);
+		board.setActiveTetromino(new ActiveTetromino(5, 18, new I_Tetromino(Orientation.NORTH, Color.BLUE)));
+		assertEquals(17, find(board).length);
+		board.setActiveTetromino(new ActiveTetromino(5, 18, new O_Tetromino(Color.BLUE)));
+		assertEquals(9, find(board).length);
+	}
+
+	@Test public void test_03() {
+		// Slide underneath an overhang
+		Board board = board(
+			"|_|_|_|_|_|_|_|_|\n" +
+			"|_|_|_|_|_|_|_|_|\n" +
+			"|_|_|_|_|_|_|_|_|\n" +
+			"|_|_|_|_|R|R|R|R|\n" +
+			"|_|_|_|_|_|_|_|_|\n");
+		board.setActiveTetromino(new ActiveTetromino(5, 3, new I_Tetromino(Orientation.NORTH, Color.BLUE)));
+		// Cannot get underneath by dropping straight down
+		assertNotEquals(0, PackedTetromino.getY(board.dropTetromino(board.getPackedActiveTetromino())));
+		boolean found = false;
+		for (long t : find(board)) {
+			if (PackedTetromino.getX(t) == 5 && PackedTetromino.getY(t) == 0) {
+				found = true;
+			}
+		}
+		assertTrue(found);
+	}
+
+	@Test public void test_04() {
+		// Following the path to every placement gets there
+		Board board = board(
+			"|_|_|_|_|_|_|\n" +
+			"|_|_|_|_|_|_|\n" +
+			"|_|_|_|_|_|_|\n" +
+			"|_|_|_|_|_|_|\n" +
+			"|_|_|_|R|R|_|\n" +
+			"|R|_|_|_|_|_|\n" +
+			"|R|R|_|_|R|_|\n");
+		board.setActiveTetromino(new ActiveTetromino(3, 5, new S_Tetromino(Orientation.NORTH, Color.BLUE)));
+		PlacementFinder finder = new PlacementFinder(6, 7);
+		long[] placements = new long[finder.getMaxPlacements()];
+		Move[] path = new Move[finder.getMaxPathLength()];
+		int n = finder.find(board, placements);
+		assertTrue(n > 0);
+		for (int i = 0; i != n; ++i) {
+			Board b = board;
+			int length = finder.getPath(placements[i], path);
+			for (int j = 0; j != length; ++j) {
+				assertTrue(path[j].isValid(b));
+				b = path[j].apply(b);
+			}
+			long t = b.getPackedActiveTetromino();
+			assertEquals(placements[i], t);
+			assertFalse(b.canPlaceTetromino(PackedTetromino.translate(t, 0, -1)));
+		}
+	}
+
+	private static long[] find(Board board) {
+		PlacementFinder finder = new PlacementFinder(board.getWidth(), board.getHeight());
+		long[] placements = new long[finder.getMaxPlacements()];
+		int n = finder.find(board, placements);
+		return java.util.Arrays.copyOf(placements, n);
+	}
+
+	/**
+	 * Construct a board from its textual representation, where any non-empty cell
+	 * is filled with a red tetromino.
+	 */
+	private static Board board(String text) {
+		String[] rows = text.split("\n");
+		int width = (rows[0].length() - 1) / 2;
+		Board board = new Board(null, width, rows.length);
+		Tetromino filler = new O_Tetromino(Color.RED);
+		for (int i = 0; i != rows.length; ++i) {
+			int y = rows.length - i - 1;
+			for (int x = 0; x != width; ++x) {
+				if (rows[i].charAt((x * 2) + 1) != '_') {
+					board.setPlacedTetrominoAt(x, y, filler);
+				}
+			}
+		}
+		return board;
+	}
+}
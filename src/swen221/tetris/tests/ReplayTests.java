@@ -0,0 +1,212 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+import swen221.tetris.ai.AutoPlayer;
+import swen221.tetris.logic.Game;
+import swen221.tetris.moves.Move;
+import swen221.tetris.replay.*;
+import swen221.tetris.simulation.Player;
+import swen221.tetris.simulation.ScriptedPlayer;
+import swen221.tetris.tetromino.BagSequence;
+
+/**
+ * Tests for recording games and playing them back.
+ */
+public class ReplayTests {
+	private static final String SCRIPT = "LLX..RCX..CCRRX..LLLCX..RRRRX..LLLLX..";
+
+	@Test public void test_01() throws IOException {
+		// Playing back a recording gives the same game
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Game original = record(Channels.newChannel(out), Runnable::run, 11, 4_000, 0, 8192);
+		ReplayReader reader = new ReplayReader(ByteBuffer.wrap(out.toByteArray()));
+		assertEquals(10, reader.getWidth());
+		assertEquals(20, reader.getHeight());
+		assertEquals(11, reader.getSeed());
+		Game replayed = reader.newGame();
+		reader.play(replayed);
+		assertTrue(replayed.isGameOver());
+		assertSameGame(original, replayed);
+		// A few bytes per tetromino is enough
+		assertTrue(out.size() < (8 * original.getTetrominoCount()) + Replay.HEADER_SIZE);
+	}
+
+	@Test public void test_02() throws IOException {
+		// Recordings written through small buffers on another thread, one after
+		// another on the same channel, can be read in turn
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		WritableByteChannel channel = Channels.newChannel(out);
+		Game[] games = new Game[3];
+		for (int i = 0; i != games.length; ++i) {
+			games[i] = record(channel, executor, i, 20 + i, 0, Replay.HEADER_SIZE);
+		}
+		executor.shutdown();
+		ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+		for (int i = 0; i != games.length; ++i) {
+			ReplayReader reader = new ReplayReader(buffer);
+			Game replayed = reader.newGame();
+			assertEquals(20 + i, reader.play(replayed));
+			assertSameGame(games[i], replayed);
+		}
+		assertFalse(buffer.hasRemaining());
+	}
+
+	@Test public void test_03() throws IOException {
+		// Seeking to any cycle gives the same game as playing up to it
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Game original = record(Channels.newChannel(out), Runnable::run, 5, 1_500, 100, 1024, new AutoPlayer());
+		ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+		SeekableReplay replay = new SeekableReplay(buffer);
+		assertFalse(buffer.hasRemaining());
+		assertEquals(1_500, replay.getTicks());
+		assertEquals(15, replay.getCheckpointCount());
+		for (long tick : new long[] { 0, 1, 99, 100, 101, 777, 1_400, 1_499, 1_500 }) {
+			ReplayReader reader = new ReplayReader(ByteBuffer.wrap(out.toByteArray()));
+			Game expected = reader.newGame();
+			for (long i = 0; i != tick;) {
+				int event = reader.next();
+				ReplayReader.apply(expected, event);
+				if (event == Replay.CLOCK) {
+					i++;
+				}
+			}
+			Game actual = replay.seek(tick);
+			assertSameGame(expected, actual);
+			assertSame(expected.getNextTetromino(), actual.getNextTetromino());
+			// Playing on from there gives the same game as originally played
+			reader.play(expected);
+			assertSameGame(original, expected);
+		}
+		// The game at the end can be played on from there
+		Game last = replay.seek(1_500);
+		assertSameGame(original, last);
+		for (int i = 0; i != 100; ++i) {
+			last.clock();
+			original.clock();
+		}
+		assertSameGame(original, last);
+	}
+
+	@Test public void test_04() throws IOException {
+		// A file of recordings spread over several small windows can be read in
+		// parallel, in place
+		Path file = Files.createTempFile("corpus", ".replay");
+		try {
+			Game[] games = new Game[12];
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				for (int i = 0; i != games.length; ++i) {
+					games[i] = record(channel, Runnable::run, i, 200 + (i * 50), 50, 1024, new AutoPlayer());
+				}
+			}
+			try (ReplayCorpus corpus = ReplayCorpus.open(file, 8192)) {
+				assertEquals(games.length, corpus.size());
+				Game[] replayed = corpus.games().parallel().map(r -> {
+					Game game = r.newGame();
+					r.play(game);
+					return game;
+				}).toArray(Game[]::new);
+				for (int i = 0; i != games.length; ++i) {
+					assertSameGame(games[i], replayed[i]);
+				}
+				// Events can be analysed without playing them
+				long[] ticks = corpus.games().parallel()
+						.mapToLong(r -> r.events().filter(e -> e == Replay.CLOCK).count()).toArray();
+				for (int i = 0; i != games.length; ++i) {
+					assertEquals(200 + (i * 50), ticks[i]);
+				}
+			}
+			// A window too small for a recording is rejected
+			assertThrows(IOException.class, () -> ReplayCorpus.open(file, 1024));
+			// A damaged recording is reported at its position in the file, even when
+			// it is not at the start of a window. The damaged copy is written to a
+			// fresh file, since the original may still be mapped.
+			byte[] bytes = Files.readAllBytes(file);
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			for (int i = 0; i != games.length - 1; ++i) {
+				new ReplayReader(buffer).play(new Game(new BagSequence(i), 10, 20));
+			}
+			int damaged = buffer.position();
+			bytes[damaged] = 0;
+			Path copy = Files.createTempFile("corpus", ".replay");
+			try {
+				Files.write(copy, bytes);
+				IOException e = assertThrows(IOException.class, () -> ReplayCorpus.open(copy, 8192));
+				assertEquals("Invalid recording at offset " + damaged, e.getMessage());
+			} finally {
+				deleteLeniently(copy);
+			}
+		} finally {
+			deleteLeniently(file);
+		}
+	}
+
+	/**
+	 * Play and record a game until either it is over or a given number of cycles
+	 * have been clocked, using a scripted player.
+	 */
+	private static Game record(WritableByteChannel channel, Executor executor, long seed, int ticks,
+			int checkpointInterval, int bufferSize) throws IOException {
+		return record(channel, executor, seed, ticks, checkpointInterval, bufferSize, new ScriptedPlayer(SCRIPT));
+	}
+
+	/**
+	 * Play and record a game until either it is over or a given number of cycles
+	 * have been clocked.
+	 */
+	private static Game record(WritableByteChannel channel, Executor executor, long seed, int ticks,
+			int checkpointInterval, int bufferSize, Player player) throws IOException {
+		Game game = new Game(new BagSequence(seed), 10, 20);
+		ReplayRecorder recorder = new ReplayRecorder(channel, executor, seed, 10, 20, checkpointInterval,
+				bufferSize);
+		game.setListener(recorder);
+		for (int i = 0; i != ticks && !game.isGameOver(); ++i) {
+			for (Move move = player.getMove(game); move != null; move = player.getMove(game)) {
+				game.apply(move);
+			}
+			game.clock();
+		}
+		recorder.finish();
+		return game;
+	}
+
+	/**
+	 * Delete a given file if possible. A file which has been memory-mapped cannot
+	 * be deleted on some platforms until its mappings have been garbage
+	 * collected, in which case it is deleted when the virtual machine exits.
+	 */
+	private static void deleteLeniently(Path file) {
+		try {
+			Files.delete(file);
+		} catch (IOException e) {
+			file.toFile().deleteOnExit();
+		}
+	}
+
+	private static void assertSameGame(Game expected, Game actual) {
+		assertEquals(expected.getActiveBoard().toString(), actual.getActiveBoard().toString());
+		assertEquals(expected.getActiveBoard().getHash(), actual.getActiveBoard().getHash());
+		assertEquals(expected.getScore(), actual.getScore());
+		assertEquals(expected.getLines(), actual.getLines());
+		assertEquals(expected.getTetrominoCount(), actual.getTetrominoCount());
+	}
+}
@@ -0,0 +1,93 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.EnumSet;
+
+import org.junit.jupiter.api.Test;
+
+import swen221.tetris.tetromino.*;
+import swen221.tetris.tetromino.Tetromino.Color;
+
+/**
+ * Tests for the sequences of tetrominos issued to games.
+ */
+public class SequenceTests {
+
+	@Test public void test_01() {
+		// Sequences with the same seed issue the same tetrominos
+		BagSequence first = new BagSequence(221);
+		BagSequence second = new BagSequence(221);
+		BagSequence other = new BagSequence(222);
+		boolean differs = false;
+		for (int i = 0; i != 3 * BagSequence.BUFFER_SIZE; ++i) {
+			Tetromino t = first.next();
+			assertSame(t, second.next());
+			differs |= t != other.next();
+		}
+		assertTrue(differs);
+	}
+
+	@Test public void test_02() {
+		// Each bag contains every shape exactly once
+		BagSequence sequence = new BagSequence(1);
+		EnumSet<Color> colors = EnumSet.noneOf(Color.class);
+		for (int i = 0; i != 1000; ++i) {
+			EnumSet<Shape> bag = EnumSet.noneOf(Shape.class);
+			for (int j = 0; j != 7; ++j) {
+				Tetromino t = sequence.next();
+				assertTrue(bag.add(t.getShape()));
+				colors.add(t.getColor());
+			}
+		}
+		assertEquals(7 * 1000, sequence.getPosition());
+		// Every color is used, except that reserved for being stuck
+		assertEquals(Color.values().length - 1, colors.size());
+		assertFalse(colors.contains(Color.DARK_GRAY));
+	}
+
+	@Test public void test_03() {
+		// Skipping tetrominos is the same as issuing them
+		for (long n : new long[] { 0, 1, 6, BagSequence.BUFFER_SIZE - 1, BagSequence.BUFFER_SIZE,
+				(5 * BagSequence.BUFFER_SIZE) + 3, 5 * BagSequence.BUFFER_SIZE }) {
+			BagSequence issued = new BagSequence(7);
+			BagSequence skipped = new BagSequence(7);
+			skipped.next();
+			issued.next();
+			for (long i = 0; i != n; ++i) {
+				issued.next();
+			}
+			skipped.skip(n);
+			assertEquals(issued.getPosition(), skipped.getPosition());
+			for (int i = 0; i != 100; ++i) {
+				assertSame(issued.next(), skipped.next());
+			}
+		}
+	}
+
+	@Test public void test_04() {
+		// Splitting does not change the tetrominos already generated, and gives the
+		// same sequence each time
+		BagSequence first = new BagSequence(3);
+		BagSequence second = new BagSequence(3);
+		first.next();
+		second.next();
+		BagSequence a = first.split();
+		BagSequence b = second.split();
+		for (int i = 0; i != 100; ++i) {
+			assertSame(first.next(), second.next());
+			assertSame(a.next(), b.next());
+		}
+		// Splitting does not affect the tetrominos generated later, hence a split
+		// sequence can still be reproduced from its position
+		first.split();
+		BagSequence skipped = new BagSequence(3);
+		skipped.skip(first.getPosition());
+		for (int i = 0; i != 2 * BagSequence.BUFFER_SIZE; ++i) {
+			assertSame(skipped.next(), first.next());
+		}
+	}
+}
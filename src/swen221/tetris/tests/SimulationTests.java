@@ -0,0 +1,122 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import swen221.tetris.ai.AutoPlayer;
+import swen221.tetris.ai.Evaluator;
+import swen221.tetris.simulation.*;
+
+public class SimulationTests {
+
+	@Test public void test_01() {
+		// Simulations with the same seed are identical
+		Simulator simulator = new Simulator(10, 20, () -> new ScriptedPlayer("LLX..RCX..CCRRX..LLLCX.."));
+		Statistics first = simulator.run(1, 100_000);
+		Statistics second = simulator.run(1, 100_000);
+		assertEquals(100_000, first.getTicks());
+		assertEquals(first.getGames(), second.getGames());
+		assertEquals(first.getMoves(), second.getMoves());
+		assertEquals(first.getLines(), second.getLines());
+		assertEquals(first.getScore(), second.getScore());
+	}
+
+	@Test public void test_02() {
+		// Dropping every tetromino in the middle quickly ends the game
+		Simulator simulator = new Simulator(10, 20, () -> new ScriptedPlayer("X."));
+		Statistics stats = new Statistics();
+		simulator.play(1, 100_000, stats);
+		assertEquals(1, stats.getGames());
+		assertTrue(stats.getTicks() < 1000);
+		assertEquals(0, stats.getLines());
+	}
+
+	@Test public void test_03() {
+		// Games played concurrently give the same results as one at a time
+		Simulator simulator = new Simulator(10, 20, () -> new ScriptedPlayer("LLX..RCX..CCRRX..LLLCX.."));
+		Statistics sequential = new Statistics();
+		for (int i = 0; i != 100; ++i) {
+			simulator.play(7 + i, 10_000, sequential);
+		}
+		ForkJoinPool pool = new ForkJoinPool(4);
+		Statistics concurrent = new BatchSimulator(simulator, pool).run(7, 100, 10_000);
+		pool.shutdown();
+		assertEquals(100, concurrent.getGames());
+		assertEquals(sequential.getTicks(), concurrent.getTicks());
+		assertEquals(sequential.getMoves(), concurrent.getMoves());
+		assertEquals(sequential.getScore(), concurrent.getScore());
+	}
+
+	@Test public void test_04() throws IOException {
+		// Games saved part way through resume to give the same results as games
+		// played without stopping
+		Simulator simulator = new Simulator(10, 20, () -> new AutoPlayer(Evaluator.DEFAULT, 1_000_000_000L));
+		ForkJoinPool pool = new ForkJoinPool(4);
+		BatchSimulator batch = new BatchSimulator(simulator, pool);
+		Statistics expected = batch.run(3, 8, 1_000);
+		Path dir = Files.createTempDirectory("games");
+		// Registered first, so it is deleted last if anything is left until exit
+		dir.toFile().deleteOnExit();
+		Path file = dir.resolve("games.bin");
+		Path crashed = dir.resolve("crashed.bin");
+		try {
+			try (GameStore store = GameStore.open(file, 8, 10, 20, 100, 4)) {
+				batch.run(3, 8, 600, store);
+				assertEquals(600, store.getTick(0));
+				assertEquals(3, store.getSeed(0));
+			}
+			// Corrupt the latest save of the first game, so the previous one is used.
+			// This is written to a fresh file, since the original may still be mapped.
+			byte[] bytes = Files.readAllBytes(file);
+			bytes[100] = 42;
+			Files.write(crashed, bytes);
+			try (GameStore store = GameStore.open(crashed, 8, 10, 20, 100, 4)) {
+				assertEquals(500, store.getTick(0));
+				assertEquals(600, store.getTick(1));
+				Statistics resumed = batch.run(3, 8, 1_000, store);
+				assertEquals(expected.getTicks(), resumed.getTicks());
+				assertEquals(expected.getLines(), resumed.getLines());
+				assertEquals(expected.getScore(), resumed.getScore());
+			}
+			// A store for different games is rejected
+			assertThrows(IOException.class, () -> GameStore.open(file, 8, 10, 21, 100, 4));
+		} finally {
+			pool.shutdown();
+			deleteLeniently(file);
+			deleteLeniently(crashed);
+			deleteLeniently(dir);
+		}
+	}
+
+	@Test public void test_05() {
+		// Boards on which every game is over before it begins are rejected, rather
+		// than simulated forever
+		assertThrows(IllegalArgumentException.class, () -> new Simulator(1, 20, () -> new ScriptedPlayer("X.")));
+		assertThrows(IllegalArgumentException.class, () -> new Simulator(2, 20, () -> new ScriptedPlayer("X.")));
+		assertThrows(IllegalArgumentException.class, () -> new Simulator(10, 1, () -> new ScriptedPlayer("X.")));
+		// Whereas games on a board where only some shapes fit still make progress
+		Statistics stats = new Simulator(3, 20, () -> new ScriptedPlayer("X.")).run(1, 1_000);
+		assertEquals(1_000, stats.getTicks());
+	}
+
+	/**
+	 * Delete a given file if possible. A file which has been memory-mapped cannot
+	 * be deleted on some platforms until its mappings have been garbage
+	 * collected, in which case it is deleted when the virtual machine exits.
+	 */
+	private static void deleteLeniently(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			file.toFile().deleteOnExit();
+		}
+	}
+}
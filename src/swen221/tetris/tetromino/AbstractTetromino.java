@@ -3,6 +3,8 @@
 // You may not distribute it in any other way without permission.
 package swen221.tetris.tetromino;
 
+import swen221.tetris.logic.Rectangle;
+
 /**
  * Provides a base implementation from which all concrete tetromino's extend.
  *
@@ -12,17 +14,23 @@ package swen221.tetris.tetromino;
  */
 public abstract class AbstractTetromino implements Tetromino {
 
+	/**
+	 * The shape of this Tetromino, which determines the cells it occupies.
+	 */
+	protected final Shape shape;
+
 	/**
 	 * The orientation of this Tetromino.
 	 */
-	protected Orientation orientation;
+	protected final Orientation orientation;
 
 	/**
 	 * color of the Tetromino cells
 	 */
-	protected Color color;
+	protected final Color color;
 
-	AbstractTetromino(Orientation orientation, Color color) {
+	AbstractTetromino(Shape shape, Orientation orientation, Color color) {
+		this.shape = shape;
 		this.orientation = orientation;
 		this.color = color;
 	}
@@ -37,6 +45,27 @@ public abstract class AbstractTetromino implements Tetromino {
 		return orientation;
 	}
 
+	@Override
+	public Shape getShape() {
+		return shape;
+	}
+
+	@Override
+	public boolean isWithin(int x, int y) {
+		// NOTE: a tetromino is always described as though facing north
+		return shape.isWithin(Orientation.NORTH, x, y);
+	}
+
+	@Override
+	public Rectangle getBoundingBox() {
+		return shape.getBoundingBox(Orientation.NORTH);
+	}
+
+	@Override
+	public Tetromino rotate(int steps) {
+		return shape.getTetromino(orientation.rotate(steps), color);
+	}
+
 	public abstract String getName();
 
 	@Override
@@ -38,6 +38,11 @@ public class ActiveTetromino implements Tetromino {
 
 	protected boolean hasLanded = false;
 
+	/**
+	 * The bounding box of this tetromino on the board, which is computed on demand.
+	 */
+	private Rectangle boundingBox;
+
 	public ActiveTetromino(int x, int y, Tetromino tetromino) {
 		if (tetromino == null) {
 			throw new IllegalArgumentException("invalid tetromino!");
@@ -73,6 +78,11 @@ public class ActiveTetromino implements Tetromino {
 		return tetromino.getOrientation();
 	}
 
+	@Override
+	public Shape getShape() {
+		return tetromino.getShape();
+	}
+
 	/**
 	 * Get the abstract tetromino underlying this active tetromino.
 	 *
@@ -84,34 +94,17 @@ public class ActiveTetromino implements Tetromino {
 
 	@Override
 	public boolean isWithin(int x, int y) {
-		int dx = x - this.x;
-		int dy = y - this.y;
-		//
-		switch (tetromino.getOrientation()) {
-		case NORTH:
-			return tetromino.isWithin(dx, dy);
-		case SOUTH:
-			return tetromino.isWithin(-dx, -dy);
-		case EAST:
-			return tetromino.isWithin(-dy, dx);
-		case WEST:
-		default:
-			return tetromino.isWithin(dy, -dx);
-		}
+		return tetromino.getShape().isWithin(tetromino.getOrientation(), x - this.x, y - this.y);
 	}
 
 	@Override
 	public Rectangle getBoundingBox() {
-		Rectangle box = tetromino.getBoundingBox();
-		switch (tetromino.getOrientation()) {
-		case WEST:
-			box = box.rotateClockwise();
-		case SOUTH:
-			box = box.rotateClockwise();
-		case EAST:
-			box = box.rotateClockwise();
+		// NOTE: this is safe to cache since an active tetromino cannot be moved
+		if (boundingBox == null) {
+			Rectangle box = tetromino.getShape().getBoundingBox(tetromino.getOrientation());
+			boundingBox = box.translate(x, y);
 		}
-		return box.translate(x, y);
+		return boundingBox;
 	}
 
 	/**
@@ -0,0 +1,210 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.tetromino;
+
+import java.util.Iterator;
+
+import swen221.tetris.tetromino.Tetromino.Color;
+import swen221.tetris.tetromino.Tetromino.Orientation;
+
+/**
+ * An infinite sequence of tetrominos which are issued in "bags". Each bag
+ * contains every shape exactly once, in a random order, such that there are
+ * never more than twelve other tetrominos between two of the same shape. Each
+ * tetromino also has a randomly chosen color. The sequence is determined
+ * entirely by its seed, such that two sequences constructed with the same seed
+ * issue the same tetrominos.
+ * <p>
+ * Random numbers are taken from a SplitMix64 generator, whose state is a single
+ * <code>long</code>. Tetrominos are generated in bulk ahead of time, as one
+ * byte each, and issued from the buffer using the flyweight instances of each
+ * shape. Hence, issuing a tetromino does not allocate and is very cheap. A
+ * sequence should not be shared between threads, but it can be split into an
+ * independent sequence for use by another thread (see {@link #split()}).
+ * </p>
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public class BagSequence implements Iterator<Tetromino> {
+	/**
+	 * The shapes which can be issued, in the order they are selected by index.
+	 */
+	private static final Shape[] SHAPES = { Shape.Z, Shape.S, Shape.T, Shape.J, Shape.L, Shape.O, Shape.I };
+
+	private static final Color[] COLORS = Color.values();
+
+	/**
+	 * The number of tetrominos generated at once. This is a whole number of bags,
+	 * such that bags never straddle two buffers.
+	 */
+	public static final int BUFFER_SIZE = 585 * SHAPES.length;
+
+	/**
+	 * The number of random numbers taken from the generator to fill a buffer,
+	 * being two for each bag.
+	 */
+	private static final long RANDOMS_PER_BUFFER = 2 * (BUFFER_SIZE / SHAPES.length);
+
+	/**
+	 * The increment of the generator, which is the golden ratio as a fraction of
+	 * 2^64.
+	 */
+	private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * The increment used to derive the seed of each sequence split from this one,
+	 * which differs from <code>GAMMA</code> such that split sequences do not
+	 * simply repeat this one.
+	 */
+	private static final long SPLIT_GAMMA = 0xD1B54A32D192ED03L;
+
+	/**
+	 * Tetrominos which have been generated, each encoded as its shape (the
+	 * highest four bits) and its color (the lowest four bits).
+	 */
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+
+	/**
+	 * The state of the generator.
+	 */
+	private long state;
+
+	/**
+	 * The index in the buffer of the next tetromino to issue.
+	 */
+	private int index = BUFFER_SIZE;
+
+	/**
+	 * The number of tetrominos issued so far.
+	 */
+	private long position;
+
+	/**
+	 * The number of times this sequence has been split.
+	 */
+	private long splits;
+
+	public BagSequence(long seed) {
+		this.state = seed;
+	}
+
+	@Override
+	public boolean hasNext() {
+		// This is an infinite stream
+		return true;
+	}
+
+	@Override
+	public Tetromino next() {
+		if (index == BUFFER_SIZE) {
+			fill();
+		}
+		int code = buffer[index++];
+		position++;
+		return SHAPES[code >>> 4].getTetromino(Orientation.NORTH, COLORS[code & 0xF]);
+	}
+
+	/**
+	 * Get the number of tetrominos issued so far. A sequence constructed with the
+	 * same seed and then skipped forward by this many tetrominos issues the same
+	 * tetrominos as this one from now on (see {@link #skip(long)}).
+	 *
+	 * @return
+	 */
+	public long getPosition() {
+		return position;
+	}
+
+	/**
+	 * Skip over a given number of tetrominos, as though they had been issued.
+	 * This takes constant time, since at most one buffer is generated.
+	 *
+	 * @param n
+	 */
+	public void skip(long n) {
+		if (n < 0) {
+			throw new IllegalArgumentException("Invalid number of tetrominos (" + n + ")");
+		}
+		position += n;
+		if (n > BUFFER_SIZE - index) {
+			n -= BUFFER_SIZE - index;
+			// Every buffer advances the generator by the same amount, so those skipped
+			// entirely need never be generated
+			long buffers = (n - 1) / BUFFER_SIZE;
+			state += buffers * RANDOMS_PER_BUFFER * GAMMA;
+			n -= buffers * BUFFER_SIZE;
+			fill();
+		}
+		index += (int) n;
+	}
+
+	/**
+	 * Construct a new sequence which is independent of this one, and is
+	 * determined entirely by the state of this one and the number of times it has
+	 * been split. This does not advance this sequence's generator, hence it
+	 * issues the same tetrominos whether or not it has been split.
+	 *
+	 * @return
+	 */
+	public BagSequence split() {
+		return new BagSequence(mix(state + (++splits * SPLIT_GAMMA)));
+	}
+
+	/**
+	 * Generate the next buffer of tetrominos.
+	 */
+	private void fill() {
+		byte[] buffer = this.buffer;
+		for (int i = 0; i != BUFFER_SIZE; i += SHAPES.length) {
+			long bits = nextLong();
+			// Shuffle a bag in place using Fisher-Yates. Only the first choice takes
+			// fresh bits from the generator; each later choice is taken from the high
+			// bits left after stirring the same number with a multiply-add step, which
+			// is cheaper but means the choices within a bag are not independent. Each
+			// choice is also slightly biased, by less than one part in 2^32.
+			for (int j = 0; j != SHAPES.length; ++j) {
+				buffer[i + j] = (byte) j;
+			}
+			for (int j = SHAPES.length - 1; j > 0; --j) {
+				int k = (int) (((bits >>> 32) * (j + 1)) >>> 32);
+				bits = bits * GAMMA + 1;
+				byte tmp = buffer[i + j];
+				buffer[i + j] = buffer[i + k];
+				buffer[i + k] = tmp;
+			}
+			// Choose the colors likewise, stirring one fresh random number.
+			// NOTE: -1 here because DARK_GRAY is reserved for being stuck.
+			long colors = nextLong();
+			for (int j = 0; j != SHAPES.length; ++j) {
+				int color = (int) (((colors >>> 32) * (COLORS.length - 1)) >>> 32);
+				colors = colors * GAMMA + 1;
+				buffer[i + j] = (byte) ((buffer[i + j] << 4) | color);
+			}
+		}
+		index = 0;
+	}
+
+	/**
+	 * Get the next random number from the generator.
+	 *
+	 * @return
+	 */
+	private long nextLong() {
+		return mix(state += GAMMA);
+	}
+
+	/**
+	 * Scramble the bits of a given state of the generator, to give a random
+	 * number.
+	 *
+	 * @param z
+	 * @return
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
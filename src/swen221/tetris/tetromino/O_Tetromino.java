@@ -3,8 +3,6 @@
 // You may not distribute it in any other way without permission.
 package swen221.tetris.tetromino;
 
-import swen221.tetris.logic.Rectangle;
-
 /**
  * The "O" tetromino.
  *
@@ -15,17 +13,7 @@ import swen221.tetris.logic.Rectangle;
 public class O_Tetromino extends AbstractTetromino {
 	public O_Tetromino(Color color) {
 		// NOTE: orientation fixed for this tetromino
-		super(Orientation.NORTH, color);
-	}
-
-	@Override
-	public boolean isWithin(int x, int y) {
-		return x >= 0 && x <= 1 && y >= 0 && y <= 1;
-	}
-
-	@Override
-	public Rectangle getBoundingBox() {
-		return new Rectangle(0, 1, 1, 0);
+		super(Shape.O, Orientation.NORTH, color);
 	}
 
 	@Override
@@ -0,0 +1,221 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.tetromino;
+
+import swen221.tetris.tetromino.Tetromino.Color;
+import swen221.tetris.tetromino.Tetromino.Orientation;
+
+/**
+ * Provides operations on active tetrominos which are packed into a single
+ * <code>long</code>. This holds the position, shape, orientation and color of
+ * the tetromino, along with whether or not it has landed. This representation
+ * is used internally by the game engine, such that moving a tetromino does not
+ * allocate any objects. An {@link ActiveTetromino} can be obtained from a
+ * packed tetromino when required.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public final class PackedTetromino {
+	/**
+	 * Represents the absence of a tetromino. This can never be produced by packing
+	 * an actual tetromino.
+	 */
+	public static final long NONE = -1L;
+
+	// Layout of the packed representation, from least significant bit:
+	//
+	// | x (16) | y (16) | shape (3) | orientation (2) | color (3) | landed (1) |
+	//
+	// Coordinates are offset such that negative positions can be represented.
+	private static final int COORD_BITS = 16;
+	private static final int COORD_OFFSET = 1 << (COORD_BITS - 1);
+	private static final long COORD_MASK = (1L << COORD_BITS) - 1;
+	private static final int Y_SHIFT = COORD_BITS;
+	private static final int SHAPE_SHIFT = Y_SHIFT + COORD_BITS;
+	private static final int ORIENTATION_SHIFT = SHAPE_SHIFT + 3;
+	private static final int COLOR_SHIFT = ORIENTATION_SHIFT + 2;
+	private static final int LANDED_SHIFT = COLOR_SHIFT + 3;
+	private static final long ORIENTATION_MASK = 3L << ORIENTATION_SHIFT;
+	private static final long LANDED = 1L << LANDED_SHIFT;
+
+	private static final Shape[] SHAPES = Shape.values();
+	private static final Orientation[] ORIENTATIONS = Orientation.values();
+	private static final Color[] COLORS = Color.values();
+
+	private PackedTetromino() {
+	}
+
+	/**
+	 * Pack a given tetromino at a given position on the board.
+	 *
+	 * @param x         The column coordinate of the center of the tetromino.
+	 * @param y         The row coordinate of the center of the tetromino.
+	 * @param tetromino The tetromino being packed.
+	 * @return
+	 */
+	public static long pack(int x, int y, Tetromino tetromino) {
+		if (x < -COORD_OFFSET || x >= COORD_OFFSET || y < -COORD_OFFSET || y >= COORD_OFFSET) {
+			throw new IllegalArgumentException("Invalid position (" + x + "," + y + ")");
+		}
+		return (x + COORD_OFFSET) | ((long) (y + COORD_OFFSET) << Y_SHIFT)
+				| ((long) tetromino.getShape().ordinal() << SHAPE_SHIFT)
+				| ((long) tetromino.getOrientation().ordinal() << ORIENTATION_SHIFT)
+				| ((long) tetromino.getColor().ordinal() << COLOR_SHIFT);
+	}
+
+	/**
+	 * Pack a given active tetromino, including whether or not it has landed.
+	 *
+	 * @param tetromino The tetromino being packed, which may be
+	 *                  <code>null</code>.
+	 * @return
+	 */
+	public static long pack(ActiveTetromino tetromino) {
+		if (tetromino == null) {
+			return NONE;
+		}
+		long t = pack(tetromino.x, tetromino.y, tetromino.getUnderlyingTetromino());
+		return setLanded(t, tetromino.getHasLanded());
+	}
+
+	/**
+	 * Unpack a given tetromino into an active tetromino.
+	 *
+	 * @param t The packed tetromino, which may be <code>NONE</code>.
+	 * @return
+	 */
+	public static ActiveTetromino unpack(long t) {
+		if (t == NONE) {
+			return null;
+		}
+		ActiveTetromino tetromino = new ActiveTetromino(getX(t), getY(t), getTetromino(t));
+		tetromino.setHasLanded(isLanded(t));
+		return tetromino;
+	}
+
+	/**
+	 * Get the column coordinate of the center of a packed tetromino.
+	 *
+	 * @param t
+	 * @return
+	 */
+	public static int getX(long t) {
+		return (int) (t & COORD_MASK) - COORD_OFFSET;
+	}
+
+	/**
+	 * Get the row coordinate of the center of a packed tetromino.
+	 *
+	 * @param t
+	 * @return
+	 */
+	public static int getY(long t) {
+		return (int) ((t >>> Y_SHIFT) & COORD_MASK) - COORD_OFFSET;
+	}
+
+	/**
+	 * Get the shape of a packed tetromino.
+	 *
+	 * @param t
+	 * @return
+	 */
+	public static Shape getShape(long t) {
+		return SHAPES[(int) (t >>> SHAPE_SHIFT) & 7];
+	}
+
+	/**
+	 * Get the orientation of a packed tetromino.
+	 *
+	 * @param t
+	 * @return
+	 */
+	public static Orientation getOrientation(long t) {
+		return ORIENTATIONS[(int) (t >>> ORIENTATION_SHIFT) & 3];
+	}
+
+	/**
+	 * Get the color of a packed tetromino.
+	 *
+	 * @param t
+	 * @return
+	 */
+	public static Color getColor(long t) {
+		return COLORS[(int) (t >>> COLOR_SHIFT) & 7];
+	}
+
+	/**
+	 * Get the canonical tetromino underlying a packed tetromino. This determines
+	 * its shape, orientation and color.
+	 *
+	 * @param t
+	 * @return
+	 */
+	public static Tetromino getTetromino(long t) {
+		return getShape(t).getTetromino(getOrientation(t), getColor(t));
+	}
+
+	/**
+	 * Check whether a packed tetromino has landed.
+	 *
+	 * @param t
+	 * @return
+	 */
+	public static boolean isLanded(long t) {
+		return (t & LANDED) != 0;
+	}
+
+	/**
+	 * Update whether a packed tetromino has landed.
+	 *
+	 * @param t
+	 * @param landed
+	 * @return
+	 */
+	public static long setLanded(long t, boolean landed) {
+		return landed ? (t | LANDED) : (t & ~LANDED);
+	}
+
+	/**
+	 * Check whether a given coordinate on the board is within a packed tetromino.
+	 *
+	 * @param t The packed tetromino.
+	 * @param x The x-coordinate of the position being checked.
+	 * @param y The y-coordinate of the position being checked.
+	 * @return
+	 */
+	public static boolean isWithin(long t, int x, int y) {
+		return getShape(t).isWithin(getOrientation(t), x - getX(t), y - getY(t));
+	}
+
+	/**
+	 * Move a packed tetromino by a given amount in the x and/or y direction. As
+	 * for {@link ActiveTetromino#translate(int, int)}, the moved tetromino has not
+	 * landed.
+	 *
+	 * @param t  The packed tetromino.
+	 * @param dx The amount to move in the x direction.
+	 * @param dy The amount to move in the y direction.
+	 * @return
+	 */
+	public static long translate(long t, int dx, int dy) {
+		return pack(getX(t) + dx, getY(t) + dy, getTetromino(t));
+	}
+
+	/**
+	 * Rotate a packed tetromino a given number of steps in a clockwise or
+	 * anti-clockwise direction. As for {@link ActiveTetromino#rotate(int)}, the
+	 * rotated tetromino has not landed.
+	 *
+	 * @param t     The packed tetromino.
+	 * @param steps Number of steps to rotate in clockwise direction, where
+	 *              negative values go in the anti-clockwise direction.
+	 * @return
+	 */
+	public static long rotate(long t, int steps) {
+		Orientation orientation = getTetromino(t).rotate(steps).getOrientation();
+		t &= ~(ORIENTATION_MASK | LANDED);
+		return t | ((long) orientation.ordinal() << ORIENTATION_SHIFT);
+	}
+}
@@ -0,0 +1,47 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.tetromino;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import swen221.tetris.tetromino.Tetromino.Color;
+import swen221.tetris.tetromino.Tetromino.Orientation;
+
+/**
+ * An infinite sequence of tetrominos, where each has a randomly chosen shape and
+ * color. The sequence is determined entirely by its seed, such that two
+ * sequences constructed with the same seed issue the same tetrominos.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public class RandomSequence implements Iterator<Tetromino> {
+	/**
+	 * The shapes which can be issued, in the order they are selected by index.
+	 */
+	private static final Shape[] SHAPES = { Shape.Z, Shape.S, Shape.T, Shape.J, Shape.L, Shape.O, Shape.I };
+
+	private static final Color[] COLORS = Color.values();
+
+	private final Random random;
+
+	public RandomSequence(long seed) {
+		this.random = new Random(seed);
+	}
+
+	@Override
+	public boolean hasNext() {
+		// This is an infinite stream
+		return true;
+	}
+
+	@Override
+	public Tetromino next() {
+		int tetromino = random.nextInt(SHAPES.length);
+		// NOTE: -1 here because DARK_GRAY is reserved for being stuck.
+		int color = random.nextInt(COLORS.length - 1);
+		return SHAPES[tetromino].getTetromino(Orientation.NORTH, COLORS[color]);
+	}
+}
@@ -0,0 +1,249 @@
+// This program is copyright VUW.
+// You are granted permission to use it to construct your answer to a SWEN221 assignment.
+// You may not distribute it in any other way without permission.
+package swen221.tetris.tetromino;
+
+import java.util.Arrays;
+import java.util.function.BiFunction;
+
+import swen221.tetris.logic.Rectangle;
+import swen221.tetris.tetromino.Tetromino.Color;
+import swen221.tetris.tetromino.Tetromino.Orientation;
+
+/**
+ * The shape of a tetromino. Every shape is defined by the four cells it
+ * occupies (relative to its center) when facing north. From this, tables
+ * describing the shape in every orientation are computed once, such that
+ * checking whether a cell is within a tetromino or getting its bounding box are
+ * simple array lookups. Likewise, every shape provides a single canonical
+ * instance for each combination of orientation and color, such that rotating a
+ * tetromino or issuing a new one does not allocate.
+ *
+ * @author David J. Pearce
+ * @author Marco Servetto
+ */
+public enum Shape {
+	I(I_Tetromino::new, -1, 0, 0, 0, 1, 0, 2, 0),
+	J(J_Tetromino::new, -1, 0, 0, 0, 1, 0, -1, 1),
+	L(L_Tetromino::new, -1, 0, 0, 0, 1, 0, 1, 1),
+	// NOTE: orientation fixed for this tetromino
+	O((orientation, color) -> new O_Tetromino(color), 0, 0, 1, 0, 0, 1, 1, 1),
+	S(S_Tetromino::new, -1, 0, 0, 0, 0, 1, 1, 1),
+	T(T_Tetromino::new, -1, 0, 0, 0, 1, 0, 0, 1),
+	Z(Z_Tetromino::new, 0, 0, 1, 0, -1, 1, 0, 1);
+
+	/**
+	 * The number of cells making up every tetromino.
+	 */
+	public static final int CELLS = 4;
+
+	/**
+	 * Cells are recorded in a grid of this many rows and columns, centered on the
+	 * tetromino's center. This is large enough for every shape in every
+	 * orientation.
+	 */
+	private static final int GRID = 5;
+
+	/**
+	 * The x-coordinate of each cell, indexed by orientation and then cell.
+	 */
+	private final int[][] xs = new int[4][CELLS];
+
+	/**
+	 * The y-coordinate of each cell, indexed by orientation and then cell.
+	 */
+	private final int[][] ys = new int[4][CELLS];
+
+	/**
+	 * A bitmap of the cells within the shape for each orientation, where bit
+	 * <code>(y+2)*5 + (x+2)</code> is set when cell <code>(x,y)</code> is within
+	 * the shape.
+	 */
+	private final int[] grids = new int[4];
+
+	/**
+	 * The bounding box of the shape for each orientation.
+	 */
+	private final Rectangle[] boxes = new Rectangle[4];
+
+	/**
+	 * The cells occupied on each row of the bounding box for each orientation.
+	 * Row <code>i</code> is the <code>i</code>th row from the bottom of the
+	 * bounding box, and bit <code>j</code> is set when the <code>j</code>th
+	 * column from the left of the bounding box is occupied.
+	 */
+	private final long[][] rowMasks = new long[4][];
+
+	/**
+	 * The lowest cell occupied in each column of the bounding box for each
+	 * orientation, relative to the center. Column <code>j</code> is the
+	 * <code>j</code>th column from the left of the bounding box.
+	 */
+	private final int[][] columnBottoms = new int[4][];
+
+	/**
+	 * Constructs a new tetromino of this shape for a given orientation and color.
+	 */
+	private final BiFunction<Orientation, Color, Tetromino> constructor;
+
+	Shape(BiFunction<Orientation, Color, Tetromino> constructor, int... cells) {
+		this.constructor = constructor;
+		for (Orientation orientation : Orientation.values()) {
+			int o = orientation.ordinal();
+			int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+			int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+			for (int i = 0; i != CELLS; ++i) {
+				int x = cells[i * 2];
+				int y = cells[(i * 2) + 1];
+				// Rotate the cell clockwise once for each step away from north
+				for (int r = 0; r != o; ++r) {
+					int t = x;
+					x = y;
+					y = -t;
+				}
+				xs[o][i] = x;
+				ys[o][i] = y;
+				grids[o] |= 1 << (((y + 2) * GRID) + x + 2);
+				minX = Math.min(minX, x);
+				minY = Math.min(minY, y);
+				maxX = Math.max(maxX, x);
+				maxY = Math.max(maxY, y);
+			}
+			boxes[o] = new Rectangle(minX, maxY, maxX, minY);
+			rowMasks[o] = new long[(maxY - minY) + 1];
+			columnBottoms[o] = new int[(maxX - minX) + 1];
+			Arrays.fill(columnBottoms[o], Integer.MAX_VALUE);
+			for (int i = 0; i != CELLS; ++i) {
+				rowMasks[o][ys[o][i] - minY] |= 1L << (xs[o][i] - minX);
+				int column = xs[o][i] - minX;
+				columnBottoms[o][column] = Math.min(columnBottoms[o][column], ys[o][i]);
+			}
+		}
+	}
+
+	/**
+	 * Check whether a given cell is within this shape when facing in a given
+	 * orientation.
+	 *
+	 * @param orientation The orientation of the shape.
+	 * @param x           The x-coordinate of the cell, relative to the center.
+	 * @param y           The y-coordinate of the cell, relative to the center.
+	 * @return
+	 */
+	public boolean isWithin(Orientation orientation, int x, int y) {
+		x += 2;
+		y += 2;
+		if (x < 0 || x >= GRID || y < 0 || y >= GRID) {
+			return false;
+		}
+		return (grids[orientation.ordinal()] & (1 << ((y * GRID) + x))) != 0;
+	}
+
+	/**
+	 * Get the bounding box of this shape when facing in a given orientation,
+	 * relative to its center.
+	 *
+	 * @param orientation The orientation of the shape.
+	 * @return
+	 */
+	public Rectangle getBoundingBox(Orientation orientation) {
+		return boxes[orientation.ordinal()];
+	}
+
+	/**
+	 * Get the cells occupied on a given row of the bounding box of this shape when
+	 * facing in a given orientation. Bit <code>j</code> of the result is set when
+	 * the <code>j</code>th column from the left of the bounding box is occupied.
+	 *
+	 * @param orientation The orientation of the shape.
+	 * @param row         The row of the bounding box, counting up from zero at
+	 *                    its bottom.
+	 * @return
+	 */
+	public long getRowMask(Orientation orientation, int row) {
+		return rowMasks[orientation.ordinal()][row];
+	}
+
+	/**
+	 * Get the y-coordinate of the lowest cell occupied on a given column of the
+	 * bounding box of this shape when facing in a given orientation, relative to
+	 * its center.
+	 *
+	 * @param orientation The orientation of the shape.
+	 * @param column      The column of the bounding box, counting right from zero
+	 *                    at its left.
+	 * @return
+	 */
+	public int getColumnBottom(Orientation orientation, int column) {
+		return columnBottoms[orientation.ordinal()][column];
+	}
+
+	/**
+	 * Get the x-coordinate of a given cell of this shape when facing in a given
+	 * orientation, relative to its center.
+	 *
+	 * @param orientation The orientation of the shape.
+	 * @param cell        The index of the cell, between <code>0</code> and
+	 *                    <code>CELLS-1</code>.
+	 * @return
+	 */
+	public int getCellX(Orientation orientation, int cell) {
+		return xs[orientation.ordinal()][cell];
+	}
+
+	/**
+	 * Get the y-coordinate of a given cell of this shape when facing in a given
+	 * orientation, relative to its center.
+	 *
+	 * @param orientation The orientation of the shape.
+	 * @param cell        The index of the cell, between <code>0</code> and
+	 *                    <code>CELLS-1</code>.
+	 * @return
+	 */
+	public int getCellY(Orientation orientation, int cell) {
+		return ys[orientation.ordinal()][cell];
+	}
+
+	/**
+	 * Get the canonical tetromino of this shape for a given orientation and color.
+	 * The same instance is always returned for the same arguments, hence
+	 * tetrominos obtained this way can be compared by identity. Since the
+	 * orientation of an "O" tetromino is fixed, it has only one instance per
+	 * color.
+	 *
+	 * @param orientation The orientation of the tetromino.
+	 * @param color       The color of the tetromino.
+	 * @return
+	 */
+	public Tetromino getTetromino(Orientation orientation, Color color) {
+		return Instances.TABLE[ordinal()][orientation.ordinal()][color.ordinal()];
+	}
+
+	/**
+	 * Holds the canonical tetromino instances. This is separate from the shape
+	 * itself since the instances cannot be constructed until every shape has been
+	 * initialised.
+	 */
+	private static final class Instances {
+		private static final Tetromino[][][] TABLE;
+
+		static {
+			Shape[] shapes = Shape.values();
+			Orientation[] orientations = Orientation.values();
+			Color[] colors = Color.values();
+			TABLE = new Tetromino[shapes.length][orientations.length][colors.length];
+			for (Shape shape : shapes) {
+				for (Color color : colors) {
+					for (Orientation orientation : orientations) {
+						Tetromino t = shape.constructor.apply(orientation, color);
+						if (t.getOrientation() != orientation) {
+							// Orientation is fixed, so reuse the one we already have
+							t = TABLE[shape.ordinal()][t.getOrientation().ordinal()][color.ordinal()];
+						}
+						TABLE[shape.ordinal()][orientation.ordinal()][color.ordinal()] = t;
+					}
+				}
+			}
+		}
+	}
+}
@@ -33,7 +33,7 @@ public interface Tetromino {
 		 * @return
 		 */
 		public Orientation rotate(int steps) {
-			Orientation[] values = values();
+			Orientation[] values = VALUES;
 			int index = ordinal() + steps;
 			while (index < 0) {
 				index += values.length;
@@ -43,6 +43,12 @@ public interface Tetromino {
 			}
 			return values[index];
 		}
+
+		/**
+		 * Cached copy of the orientations, since <code>values()</code> allocates a
+		 * fresh array on every call.
+		 */
+		private static final Orientation[] VALUES = values();
 	}
 
 	/**
@@ -68,6 +74,13 @@ public interface Tetromino {
 	 */
 	public Orientation getOrientation();
 
+	/**
+	 * Get the shape of this tetromino.
+	 *
+	 * @return
+	 */
+	public Shape getShape();
+
 	/**
 	 * Check whether a given coordinate on the board is within this tetromino. That
 	 * is, whether or not it is one of the locations making up this tetromino. This